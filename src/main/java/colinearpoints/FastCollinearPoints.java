@@ -1,8 +1,19 @@
 package colinearpoints;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+// points are sorted once in natural order; for every pivot the slopes to all points are computed
+// once into a primitive array and radix sorted together with the point indices. the sort is
+// stable, so every run of equal slopes keeps natural order: its first point tells whether the
+// pivot is the smallest point of the segment, which is only reported then, and its last point is
+// the other end
 public class FastCollinearPoints {
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int PASSES = (Long.SIZE + RADIX_BITS - 1) / RADIX_BITS;
+
     private LineSegment[] segments = new LineSegment[0];
 
     public FastCollinearPoints(Point[] points) {
@@ -10,39 +21,78 @@ public class FastCollinearPoints {
         for (Point point : points) {
             if (point == null) throw new IllegalArgumentException("No point in the array cannot be null");
         }
-        if (points.length < 4) return;
-        Point[] pointsCopy = new Point[points.length];
-        System.arraycopy(points, 0, pointsCopy, 0, points.length);
-        for (Point selectedPoint : pointsCopy) {
-            Arrays.sort(points, selectedPoint.slopeOrder());
-            double currentSlope = selectedPoint.slopeTo(points[0]);
-            int currentCollinearCount = 1;
-            for (int j = 1; j < points.length; j++) {
-                double jSlope = selectedPoint.slopeTo(points[j]);
-                if (jSlope == currentSlope) {
-                    currentCollinearCount++;
-                    if (j != points.length - 1) {
-                        continue;
-                    }
-                }
-                if (currentCollinearCount >= 3) {
-                    Point[] collinearPoints = new Point[currentCollinearCount + 1];
-                    System.arraycopy(points, j - currentCollinearCount,
-                            collinearPoints, 0, currentCollinearCount);
-                    collinearPoints[currentCollinearCount] = selectedPoint;
-                    Arrays.sort(collinearPoints);
-                    if (collinearPoints[0] == selectedPoint) {
-                        LineSegment[] oldSegments = segments;
-                        segments = new LineSegment[oldSegments.length + 1];
-                        System.arraycopy(oldSegments, 0, segments, 0, oldSegments.length);
-                        segments[oldSegments.length] = new LineSegment(collinearPoints[0],
-                                collinearPoints[collinearPoints.length - 1]);
-                    }
+        Point[] sorted = points.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1].compareTo(sorted[i]) == 0) throw new IllegalArgumentException("Points cannot be equal.");
+        }
+        int n = sorted.length;
+        if (n < 4) return;
+
+        long[] slopes = new long[n];
+        int[] order = new int[n];
+        long[] auxSlopes = new long[n];
+        int[] auxOrder = new int[n];
+        int[] counts = new int[RADIX];
+        List<LineSegment> found = new ArrayList<>();
+        for (int pivot = 0; pivot < n; pivot++) {
+            Point pivotPoint = sorted[pivot];
+            for (int j = 0; j < n; j++) {
+                slopes[j] = sortableBits(pivotPoint.slopeTo(sorted[j]));
+                order[j] = j;
+            }
+            sort(slopes, order, auxSlopes, auxOrder, counts);
+
+            // position 0 holds the pivot itself, its slope is negative infinity
+            int runStart = 1;
+            for (int j = 2; j <= n; j++) {
+                if (j < n && slopes[j] == slopes[runStart]) continue;
+                if (j - runStart >= 3 && pivot < order[runStart]) {
+                    found.add(new LineSegment(pivotPoint, sorted[order[j - 1]]));
                 }
-                currentCollinearCount = 1;
-                currentSlope = jSlope;
+                runStart = j;
+            }
+        }
+        segments = found.toArray(new LineSegment[0]);
+    }
+
+    // bits of the double which order as unsigned longs like the doubles do; slopes are never NaN or
+    // negative zero, so equal slopes get equal bits
+    private static long sortableBits(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return bits ^ (bits >> 63 | Long.MIN_VALUE);
+    }
 
+    // stable LSD radix sort of keys as unsigned longs, values move along with their keys
+    private static void sort(long[] keys, int[] values, long[] auxKeys, int[] auxValues, int[] counts) {
+        int n = keys.length;
+        for (int pass = 0, shift = 0; pass < PASSES; pass++, shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
             }
+            int total = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int count = counts[digit];
+                counts[digit] = total;
+                total += count;
+            }
+            for (int i = 0; i < n; i++) {
+                int position = counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+                auxKeys[position] = keys[i];
+                auxValues[position] = values[i];
+            }
+            long[] swapKeys = keys;
+            keys = auxKeys;
+            auxKeys = swapKeys;
+            int[] swapValues = values;
+            values = auxValues;
+            auxValues = swapValues;
+        }
+        // an odd number of passes leaves the result in the auxiliary arrays
+        if (PASSES % 2 == 1) {
+            System.arraycopy(keys, 0, auxKeys, 0, n);
+            System.arraycopy(values, 0, auxValues, 0, n);
         }
     }
 
@@ -0,0 +1,104 @@
+package colinearpoints;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+// FastCollinearPoints against the previous slopeOrder() comparator sort on random points with a
+// few planted lines; both must find the same segments
+public class FastCollinearPointsBenchmark {
+
+    // the previous algorithm: sorts all points with the comparator of every pivot in turn; a run
+    // of equal slopes at the very end of the array is copied from the right position here
+    private static Set<String> comparatorSegments(Point[] input) {
+        Point[] points = input.clone();
+        Set<String> segments = new HashSet<>();
+        for (Point selectedPoint : input) {
+            Comparator<Point> slopeOrder = selectedPoint.slopeOrder();
+            Arrays.sort(points, slopeOrder);
+            double currentSlope = selectedPoint.slopeTo(points[0]);
+            int currentCollinearCount = 1;
+            for (int j = 1; j < points.length; j++) {
+                double jSlope = selectedPoint.slopeTo(points[j]);
+                if (jSlope == currentSlope) {
+                    currentCollinearCount++;
+                    if (j != points.length - 1) {
+                        continue;
+                    }
+                }
+                if (currentCollinearCount >= 3) {
+                    int end = jSlope == currentSlope ? j + 1 : j;
+                    Point[] collinearPoints = Arrays.copyOfRange(points, end - currentCollinearCount, end + 1);
+                    collinearPoints[currentCollinearCount] = selectedPoint;
+                    Arrays.sort(collinearPoints);
+                    if (collinearPoints[0] == selectedPoint) {
+                        segments.add(new LineSegment(collinearPoints[0],
+                                collinearPoints[collinearPoints.length - 1]).toString());
+                    }
+                }
+                currentCollinearCount = 1;
+                currentSlope = jSlope;
+            }
+        }
+        return segments;
+    }
+
+    private static Point[] points(int n, int lines, Random random) {
+        Set<Long> used = new HashSet<>();
+        Point[] points = new Point[n];
+        int count = 0;
+        // lines of 4 to 8 points with small integer steps
+        for (int line = 0; line < lines && count < n; line++) {
+            int length = 4 + random.nextInt(5);
+            int dx = random.nextInt(11) - 5;
+            int dy = 1 + random.nextInt(5);
+            int x = 1000 + random.nextInt(30000);
+            int y = random.nextInt(30000);
+            for (int i = 0; i < length && count < n; i++, x += dx, y += dy) {
+                if (used.add((long) x << 32 | y)) {
+                    points[count++] = new Point(x, y);
+                }
+            }
+        }
+        while (count < n) {
+            int x = random.nextInt(32768);
+            int y = random.nextInt(32768);
+            if (used.add((long) x << 32 | y)) {
+                points[count++] = new Point(x, y);
+            }
+        }
+        return points;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Point[] points = points(n, lines, new Random(42));
+
+        // warm up both on a smaller input
+        Point[] warmup = points(1_000, 10, new Random(7));
+        comparatorSegments(warmup);
+        new FastCollinearPoints(warmup);
+
+        long start = System.nanoTime();
+        Set<String> expected = comparatorSegments(points);
+        long comparatorNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        FastCollinearPoints fast = new FastCollinearPoints(points);
+        long primitiveNanos = System.nanoTime() - start;
+
+        Set<String> actual = new HashSet<>();
+        for (LineSegment segment : fast.segments()) {
+            actual.add(segment.toString());
+        }
+        if (!actual.equals(expected)) throw new IllegalStateException("Different segments found.");
+
+        System.out.printf("n=%d, %d segments%n", n, fast.numberOfSegments());
+        System.out.printf("  comparator sort %8.1f ms%n", comparatorNanos / 1e6);
+        System.out.printf("  primitive sort  %8.1f ms (x%.1f)%n", primitiveNanos / 1e6,
+                (double) comparatorNanos / primitiveNanos);
+    }
+}
@@ -0,0 +1,273 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+// kd-tree for many readers and concurrent inserts: nodes never change once published, an insert
+// copies the path from the root to the new leaf and swaps the root in with a CAS, retrying when
+// another writer got there first. readers take the current snapshot and search it without locks;
+// a snapshot stays the same for as long as it is held. inserts do not rebalance, so all walks
+// down the tree are loops with explicit stacks, a degenerate tree (e.g. sorted input) is only slow
+public class ConcurrentKdTree {
+    private static final KdTree.BalancedBuilder.NodeFactory<Node> NODES =
+            (value, vertical, left, right, size) -> new Node(value, vertical, left, right);
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(null, 0));
+
+    public boolean isEmpty() {
+        return current.get().isEmpty();
+    }
+
+    public int size() {
+        return current.get().size();
+    }
+
+    // the tree as it is now, later inserts do not show up in it
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    public void insert(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        Path path = new Path();
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (!path.descend(snapshot.root, p)) return;
+            Node root = path.graft(p, new Node(p, path.slotVertical(), null, null));
+            if (current.compareAndSet(snapshot, new Snapshot(root, snapshot.size + 1))) return;
+        }
+    }
+
+    // all points show up in snapshots at once. points which end up in the same empty slot of the
+    // tree are hung into it as one balanced subtree, so a batch into an empty tree is built the
+    // way KdTree(Point2D[]) is
+    public void insertAll(Point2D[] points) {
+        if (points == null) throw new IllegalArgumentException();
+        for (Point2D point : points) {
+            if (point == null) throw new IllegalArgumentException();
+        }
+        Point2D[] sorted = points.clone();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i].compareTo(sorted[unique - 1]) != 0) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        Path path = new Path();
+        while (true) {
+            Snapshot snapshot = current.get();
+            // new points by the node above their empty slot, one map per side of it
+            Map<Node, List<Point2D>> leftSlots = new IdentityHashMap<>();
+            Map<Node, List<Point2D>> rightSlots = new IdentityHashMap<>();
+            List<Point2D> rootSlot = new ArrayList<>();
+            for (int i = 0; i < unique; i++) {
+                Point2D point = sorted[i];
+                if (!path.descend(snapshot.root, point)) continue;
+                if (path.length == 0) {
+                    rootSlot.add(point);
+                } else {
+                    Node parent = path.nodes[path.length - 1];
+                    Map<Node, List<Point2D>> slots = parent.goesLeft(point) ? leftSlots : rightSlots;
+                    slots.computeIfAbsent(parent, node -> new ArrayList<>()).add(point);
+                }
+            }
+            Node root = snapshot.root;
+            int size = snapshot.size;
+            if (!rootSlot.isEmpty()) {
+                root = graft(root, rootSlot, path);
+                size += rootSlot.size();
+            }
+            for (Map<Node, List<Point2D>> slots : Arrays.asList(leftSlots, rightSlots)) {
+                for (List<Point2D> slot : slots.values()) {
+                    root = graft(root, slot, path);
+                    size += slot.size();
+                }
+            }
+            if (root == snapshot.root || current.compareAndSet(snapshot, new Snapshot(root, size))) return;
+        }
+    }
+
+    // the points of the slot all take the path of the first one, earlier grafts only filled other slots
+    private static Node graft(Node root, List<Point2D> slot, Path path) {
+        Point2D first = slot.get(0);
+        path.descend(root, first);
+        Node subtree = KdTree.BalancedBuilder.build(slot.toArray(new Point2D[0]), path.slotVertical(), false, NODES);
+        return path.graft(first, subtree);
+    }
+
+    // the nodes from the root down to the empty slot of a point, reused between descents
+    private static final class Path {
+        private Node[] nodes = new Node[32];
+        private int length;
+
+        // false when the point is already in the tree
+        boolean descend(Node root, Point2D p) {
+            length = 0;
+            Node node = root;
+            while (node != null) {
+                if (node.value.compareTo(p) == 0) return false;
+                if (length == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, 2 * length);
+                }
+                nodes[length++] = node;
+                node = node.goesLeft(p) ? node.left : node.right;
+            }
+            return true;
+        }
+
+        // split axis of a node in the empty slot
+        boolean slotVertical() {
+            return length == 0 || !nodes[length - 1].vertical;
+        }
+
+        // the root of copies of the path nodes with the subtree in the empty slot of p
+        Node graft(Point2D p, Node subtree) {
+            Node child = subtree;
+            for (int i = length - 1; i >= 0; i--) {
+                Node parent = nodes[i];
+                child = parent.goesLeft(p)
+                        ? new Node(parent.value, parent.vertical, child, parent.right)
+                        : new Node(parent.value, parent.vertical, parent.left, child);
+            }
+            return child;
+        }
+    }
+
+    public boolean contains(Point2D p) {
+        return current.get().contains(p);
+    }
+
+    public Iterable<Point2D> range(RectHV rect) {
+        return current.get().range(rect);
+    }
+
+    public Point2D nearest(Point2D p) {
+        return current.get().nearest(p);
+    }
+
+    // immutable, safe to query from any thread
+    public static final class Snapshot {
+        private final Node root;
+        private final int size;
+
+        private Snapshot(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        public boolean isEmpty() {
+            return root == null;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Point2D p) {
+            if (p == null) throw new IllegalArgumentException();
+            Node node = root;
+            while (node != null) {
+                if (node.value.compareTo(p) == 0) return true;
+                node = node.goesLeft(p) ? node.left : node.right;
+            }
+            return false;
+        }
+
+        public Iterable<Point2D> range(RectHV rect) {
+            if (rect == null) throw new IllegalArgumentException();
+            List<Point2D> result = new ArrayList<>();
+            Node[] stack = new Node[32];
+            int top = 0;
+            if (root != null) {
+                stack[top++] = root;
+            }
+            while (top > 0) {
+                Node node = stack[--top];
+                if (rect.contains(node.value)) {
+                    result.add(node.value);
+                }
+                double val = node.vertical ? node.value.x() : node.value.y();
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                if (node.left != null && (node.vertical ? rect.xmin() : rect.ymin()) < val) {
+                    stack[top++] = node.left;
+                }
+                if (node.right != null && (node.vertical ? rect.xmax() : rect.ymax()) >= val) {
+                    stack[top++] = node.right;
+                }
+            }
+            return result;
+        }
+
+        // left subtrees hold strictly smaller coordinates, so only the distance to the split line
+        // decides whether the far side can hold something closer. the far sides wait on a stack
+        // with that distance and are dropped once the best point is at least as close
+        public Point2D nearest(Point2D p) {
+            if (p == null) throw new IllegalArgumentException();
+            if (root == null) return null;
+            double x = p.x();
+            double y = p.y();
+            Node[] stack = new Node[32];
+            double[] bounds = new double[32];
+            int top = 0;
+            stack[top++] = root;
+            Node best = null;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            while (top > 0) {
+                Node node = stack[--top];
+                if (bounds[top] >= bestDistance) continue;
+                while (node != null) {
+                    double distance = distanceSquared(node.value, x, y);
+                    if (distance < bestDistance) {
+                        best = node;
+                        bestDistance = distance;
+                    }
+                    double diff = node.vertical ? x - node.value.x() : y - node.value.y();
+                    Node far = diff < 0 ? node.right : node.left;
+                    if (far != null) {
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, 2 * top);
+                            bounds = Arrays.copyOf(bounds, 2 * top);
+                        }
+                        stack[top] = far;
+                        bounds[top++] = diff * diff;
+                    }
+                    node = diff < 0 ? node.left : node.right;
+                }
+            }
+            return best.value;
+        }
+
+        private static double distanceSquared(Point2D point, double x, double y) {
+            double dx = x - point.x();
+            double dy = y - point.y();
+            return dx * dx + dy * dy;
+        }
+    }
+
+    private static final class Node {
+        private final Point2D value;
+        private final boolean vertical;
+        private final Node left, right;
+
+        Node(Point2D value, boolean vertical, Node left, Node right) {
+            this.value = value;
+            this.vertical = vertical;
+            this.left = left;
+            this.right = right;
+        }
+
+        boolean goesLeft(Point2D p) {
+            return vertical ? p.x() < value.x() : p.y() < value.y();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// nearest() latency percentiles of reader threads while one writer keeps inserting, for a KdTree
+// behind a read-write lock and for ConcurrentKdTree; also counts the inserts done meanwhile
+public class ConcurrentKdTreeBenchmark {
+
+    private static void measure(String name, Function<Point2D, Point2D> nearest, Consumer<Point2D> insert,
+                                int readers, int queriesPerReader) throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        long[] inserts = new long[1];
+        Thread writer = new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(7);
+            while (!done.get()) {
+                insert.accept(new Point2D(random.nextDouble(), random.nextDouble()));
+                inserts[0]++;
+            }
+        });
+
+        long[][] latencies = new long[readers][queriesPerReader];
+        Thread[] threads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            long[] nanos = latencies[r];
+            SplittableRandom random = new SplittableRandom(r);
+            threads[r] = new Thread(() -> {
+                double checksum = 0;
+                for (int q = 0; q < nanos.length; q++) {
+                    Point2D query = new Point2D(random.nextDouble(), random.nextDouble());
+                    long start = System.nanoTime();
+                    checksum += nearest.apply(query).x();
+                    nanos[q] = System.nanoTime() - start;
+                }
+                if (Double.isNaN(checksum)) throw new IllegalStateException();
+            });
+        }
+
+        long start = System.nanoTime();
+        writer.start();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        done.set(true);
+        writer.join();
+        long elapsedNanos = System.nanoTime() - start;
+
+        long[] all = new long[readers * queriesPerReader];
+        for (int r = 0; r < readers; r++) {
+            System.arraycopy(latencies[r], 0, all, r * queriesPerReader, queriesPerReader);
+        }
+        Arrays.sort(all);
+        System.out.printf("%-18s %d readers, %d inserts in %.0f ms%n", name, readers, inserts[0], elapsedNanos / 1e6);
+        System.out.printf("  nearest: p50 %6.2f us, p99 %7.2f us, p99.9 %8.2f us, max %9.2f us%n",
+                percentile(all, 0.5), percentile(all, 0.99), percentile(all, 0.999), all[all.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.floor(p * sortedNanos.length))] / 1e3;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        int queriesPerReader = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        Random random = new Random(42);
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = new Point2D(random.nextDouble(), random.nextDouble());
+        }
+
+        for (int round = 0; round < 2; round++) {
+            KdTree tree = new KdTree(points);
+            ReadWriteLock lock = new ReentrantReadWriteLock();
+            measure("locked KdTree", query -> {
+                lock.readLock().lock();
+                try {
+                    return tree.nearest(query);
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }, point -> {
+                lock.writeLock().lock();
+                try {
+                    tree.insert(point);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }, readers, queriesPerReader);
+
+            ConcurrentKdTree concurrent = new ConcurrentKdTree();
+            concurrent.insertAll(points);
+            measure("ConcurrentKdTree", concurrent::nearest, concurrent::insert, readers, queriesPerReader);
+        }
+    }
+}
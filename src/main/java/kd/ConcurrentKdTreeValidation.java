@@ -0,0 +1,84 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+
+import java.util.Random;
+
+// ConcurrentKdTree on sorted input against PointSET brute force: one by one inserts of points
+// sorted along both axes make a tree as deep as it has points, which every walk down the tree
+// has to survive; insertAll of the same points into an empty tree and below such a path has to
+// build them balanced
+public class ConcurrentKdTreeValidation {
+
+    private static void check(String name, ConcurrentKdTree tree, Point2D[] points, PointSET brute, Random random,
+                              int queries) {
+        if (tree.size() != brute.size()) {
+            throw new IllegalStateException(name + ": size " + tree.size() + ", expected " + brute.size());
+        }
+        for (Point2D point : points) {
+            if (!tree.contains(point)) throw new IllegalStateException(name + ": " + point + " is missing.");
+        }
+        for (int q = 0; q < queries; q++) {
+            Point2D query = new Point2D(random.nextDouble() * 1.2 - 0.1, random.nextDouble() * 1.2 - 0.1);
+            if (tree.contains(query) != brute.contains(query)) {
+                throw new IllegalStateException(name + ": contains(" + query + ") differs.");
+            }
+            if (tree.nearest(query).distanceSquaredTo(query) != brute.nearest(query).distanceSquaredTo(query)) {
+                throw new IllegalStateException(name + ": nearest(" + query + ") differs.");
+            }
+            double x = random.nextDouble();
+            double y = random.nextDouble();
+            RectHV rect = new RectHV(x, y, Math.min(1, x + random.nextDouble() / 10), Math.min(1, y + random.nextDouble() / 10));
+            if (count(tree.range(rect)) != count(brute.range(rect))) {
+                throw new IllegalStateException(name + ": range(" + rect + ") differs.");
+            }
+        }
+    }
+
+    private static int count(Iterable<Point2D> points) {
+        int count = 0;
+        for (Point2D ignored : points) {
+            count++;
+        }
+        return count;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Random random = new Random(42);
+        Point2D[] sorted = new Point2D[n];
+        PointSET brute = new PointSET();
+        for (int i = 0; i < n; i++) {
+            sorted[i] = new Point2D((double) i / n, (double) i / n);
+            brute.insert(sorted[i]);
+        }
+
+        ConcurrentKdTree inserted = new ConcurrentKdTree();
+        for (Point2D point : sorted) {
+            inserted.insert(point);
+        }
+        check("sorted inserts", inserted, sorted, brute, random, queries);
+
+        ConcurrentKdTree batch = new ConcurrentKdTree();
+        batch.insertAll(sorted);
+        check("sorted batch", batch, sorted, brute, random, queries);
+
+        // the second half all goes into the empty slot at the end of the path of the first half
+        ConcurrentKdTree grafted = new ConcurrentKdTree();
+        Point2D[] secondHalf = new Point2D[n - n / 2];
+        for (int i = 0; i < n; i++) {
+            if (i < n / 2) {
+                grafted.insert(sorted[i]);
+            } else {
+                secondHalf[i - n / 2] = sorted[i];
+            }
+        }
+        grafted.insertAll(secondHalf);
+        grafted.insertAll(sorted);
+        check("batch below a path", grafted, sorted, brute, random, queries);
+
+        System.out.println("sorted input of " + n + " points ok");
+    }
+}
@@ -0,0 +1,245 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// static kd-tree without nodes: coordinates live in two primitive arrays in tree order, the root of
+// the subtree [lo, hi) is at (lo + hi) / 2 and the split axis alternates with depth starting with x;
+// subtrees hold points with smaller or equal (left) and greater or equal (right) coordinates.
+// queries do no boxing and allocate nothing besides their results.
+// the tree never changes after construction, so it can be shared between threads
+public class FlatKdTree {
+    private final double[] xs;
+    private final double[] ys;
+
+    // duplicates are dropped
+    public FlatKdTree(Point2D[] points) {
+        if (points == null) throw new IllegalArgumentException();
+        for (Point2D point : points) {
+            if (point == null) throw new IllegalArgumentException();
+        }
+        Point2D[] sorted = points.clone();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i].compareTo(sorted[unique - 1]) != 0) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        this.xs = new double[unique];
+        this.ys = new double[unique];
+        for (int i = 0; i < unique; i++) {
+            xs[i] = sorted[i].x();
+            ys[i] = sorted[i].y();
+        }
+        build(0, unique, true);
+    }
+
+    private void build(int lo, int hi, boolean vertical) {
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        select(vertical ? xs : ys, lo, hi - 1, mid);
+        build(lo, mid, !vertical);
+        build(mid + 1, hi, !vertical);
+    }
+
+    // quickselect over both coordinate arrays, keys are the coordinates along the split axis
+    private void select(double[] keys, int left, int right, int k) {
+        while (right > left) {
+            double pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        double tmp = xs[i];
+        xs[i] = xs[j];
+        xs[j] = tmp;
+        tmp = ys[i];
+        ys[i] = ys[j];
+        ys[j] = tmp;
+    }
+
+    public boolean isEmpty() {
+        return xs.length == 0;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    // coordinates of the point with the given index in tree order
+    public double x(int index) {
+        return xs[index];
+    }
+
+    public double y(int index) {
+        return ys[index];
+    }
+
+    // writes the tree in the format read by MappedKdTree, which queries it straight from the file
+    public void save(Path path) throws IOException {
+        if (path == null) throw new IllegalArgumentException();
+        if (xs.length > MappedKdTree.MAX_POINTS) throw new IllegalStateException("Too many points for one file.");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MappedKdTree.MAGIC).putInt(MappedKdTree.VERSION).putLong(xs.length);
+            for (int i = 0; i < xs.length; i++) {
+                if (buffer.remaining() < 2 * Double.BYTES) {
+                    writeFully(channel, buffer);
+                }
+                buffer.putDouble(xs[i]).putDouble(ys[i]);
+            }
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public boolean contains(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        return contains(0, xs.length, true, p.x(), p.y());
+    }
+
+    private boolean contains(int lo, int hi, boolean vertical, double x, double y) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[mid] == x && ys[mid] == y) return true;
+            double key = vertical ? x : y;
+            double nodeKey = vertical ? xs[mid] : ys[mid];
+            if (key == nodeKey) {
+                // equal coordinates may be on both sides
+                if (contains(lo, mid, !vertical, x, y)) return true;
+                lo = mid + 1;
+            } else if (key < nodeKey) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+            vertical = !vertical;
+        }
+        return false;
+    }
+
+    public Iterable<Point2D> range(RectHV rect) {
+        if (rect == null) throw new IllegalArgumentException();
+        List<Point2D> result = new ArrayList<>();
+        fillRange(0, xs.length, true, rect.xmin(), rect.ymin(), rect.xmax(), rect.ymax(), result);
+        return result;
+    }
+
+    private void fillRange(int lo, int hi, boolean vertical, double xmin, double ymin, double xmax, double ymax,
+                           List<Point2D> pointsInRange) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double x = xs[mid];
+        double y = ys[mid];
+        if (x >= xmin && x <= xmax && y >= ymin && y <= ymax) {
+            pointsInRange.add(new Point2D(x, y));
+        }
+        double val = vertical ? x : y;
+        double minVal = vertical ? xmin : ymin;
+        double maxVal = vertical ? xmax : ymax;
+        if (minVal <= val) {
+            fillRange(lo, mid, !vertical, xmin, ymin, xmax, ymax, pointsInRange);
+        }
+        if (maxVal >= val) {
+            fillRange(mid + 1, hi, !vertical, xmin, ymin, xmax, ymax, pointsInRange);
+        }
+    }
+
+    // appends indices in tree order of the points inside the rectangle
+    void rangeIndices(double xmin, double ymin, double xmax, double ymax, IndexList indices) {
+        fillRangeIndices(0, xs.length, true, xmin, ymin, xmax, ymax, indices);
+    }
+
+    private void fillRangeIndices(int lo, int hi, boolean vertical, double xmin, double ymin, double xmax,
+                                  double ymax, IndexList indices) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double x = xs[mid];
+        double y = ys[mid];
+        if (x >= xmin && x <= xmax && y >= ymin && y <= ymax) {
+            indices.add(mid);
+        }
+        double val = vertical ? x : y;
+        if ((vertical ? xmin : ymin) <= val) {
+            fillRangeIndices(lo, mid, !vertical, xmin, ymin, xmax, ymax, indices);
+        }
+        if ((vertical ? xmax : ymax) >= val) {
+            fillRangeIndices(mid + 1, hi, !vertical, xmin, ymin, xmax, ymax, indices);
+        }
+    }
+
+    public Point2D nearest(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        int index = nearestIndex(p.x(), p.y());
+        return index < 0 ? null : new Point2D(xs[index], ys[index]);
+    }
+
+    // index in tree order of a point nearest to (x, y), -1 when the tree is empty
+    public int nearestIndex(double x, double y) {
+        return nearest(0, xs.length, true, x, y, -1);
+    }
+
+    private int nearest(int lo, int hi, boolean vertical, double x, double y, int best) {
+        if (lo >= hi) return best;
+        int mid = (lo + hi) >>> 1;
+        double dx = x - xs[mid];
+        double dy = y - ys[mid];
+        if (best < 0 || dx * dx + dy * dy < distanceSquared(best, x, y)) {
+            best = mid;
+        }
+        double axisDistance = vertical ? dx : dy;
+        if (axisDistance < 0) {
+            best = nearest(lo, mid, !vertical, x, y, best);
+            if (axisDistance * axisDistance < distanceSquared(best, x, y)) {
+                best = nearest(mid + 1, hi, !vertical, x, y, best);
+            }
+        } else {
+            best = nearest(mid + 1, hi, !vertical, x, y, best);
+            if (axisDistance * axisDistance < distanceSquared(best, x, y)) {
+                best = nearest(lo, mid, !vertical, x, y, best);
+            }
+        }
+        return best;
+    }
+
+    private double distanceSquared(int index, double x, double y) {
+        double dx = x - xs[index];
+        double dy = y - ys[index];
+        return dx * dx + dy * dy;
+    }
+}
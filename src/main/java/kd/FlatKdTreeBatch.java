@@ -0,0 +1,247 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// runs arrays of nearest/range queries against one FlatKdTree and returns indices in tree order
+// (see FlatKdTree.x/y) in primitive arrays. queries may be reordered along a Morton curve over the
+// tree bounds, so consecutive queries walk mostly the same nodes, and split into chunks which run
+// on the common fork-join pool; results are always reported in the order of the queries
+public class FlatKdTreeBatch {
+    private static final int CHUNK_SIZE = 1 << 10;
+    private static final int MORTON_BITS = 15;
+
+    private final FlatKdTree tree;
+    private final boolean parallel;
+    private final boolean mortonOrder;
+    private final double xmin, ymin, xmax, ymax;
+
+    public FlatKdTreeBatch(FlatKdTree tree) {
+        this(tree, true, true);
+    }
+
+    public FlatKdTreeBatch(FlatKdTree tree, boolean parallel, boolean mortonOrder) {
+        if (tree == null) throw new IllegalArgumentException();
+        this.tree = tree;
+        this.parallel = parallel;
+        this.mortonOrder = mortonOrder;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < tree.size(); i++) {
+            minX = Math.min(minX, tree.x(i));
+            minY = Math.min(minY, tree.y(i));
+            maxX = Math.max(maxX, tree.x(i));
+            maxY = Math.max(maxY, tree.y(i));
+        }
+        this.xmin = minX;
+        this.ymin = minY;
+        this.xmax = maxX;
+        this.ymax = maxY;
+    }
+
+    public int[] nearest(Point2D[] queries) {
+        if (queries == null) throw new IllegalArgumentException();
+        double[] xs = new double[queries.length];
+        double[] ys = new double[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            if (queries[i] == null) throw new IllegalArgumentException();
+            xs[i] = queries[i].x();
+            ys[i] = queries[i].y();
+        }
+        return nearest(xs, ys);
+    }
+
+    // for every query (xs[i], ys[i]) the index of a nearest point, -1 when the tree is empty
+    public int[] nearest(double[] xs, double[] ys) {
+        if (xs == null || ys == null || xs.length != ys.length) throw new IllegalArgumentException();
+        int[] order = order(xs, ys);
+        int[] nearest = new int[xs.length];
+        forEachChunk(xs.length, chunk -> {
+            for (int i = chunk * CHUNK_SIZE, end = chunkEnd(chunk, xs.length); i < end; i++) {
+                int query = order[i];
+                nearest[query] = tree.nearestIndex(xs[query], ys[query]);
+            }
+        });
+        return nearest;
+    }
+
+    public RangeResult range(RectHV[] rects) {
+        if (rects == null) throw new IllegalArgumentException();
+        double[] xmins = new double[rects.length];
+        double[] ymins = new double[rects.length];
+        double[] xmaxs = new double[rects.length];
+        double[] ymaxs = new double[rects.length];
+        for (int i = 0; i < rects.length; i++) {
+            if (rects[i] == null) throw new IllegalArgumentException();
+            xmins[i] = rects[i].xmin();
+            ymins[i] = rects[i].ymin();
+            xmaxs[i] = rects[i].xmax();
+            ymaxs[i] = rects[i].ymax();
+        }
+        return range(xmins, ymins, xmaxs, ymaxs);
+    }
+
+    public RangeResult range(double[] xmins, double[] ymins, double[] xmaxs, double[] ymaxs) {
+        if (xmins == null || ymins == null || xmaxs == null || ymaxs == null) throw new IllegalArgumentException();
+        int n = xmins.length;
+        if (ymins.length != n || xmaxs.length != n || ymaxs.length != n) {
+            throw new IllegalArgumentException("Query arrays must have the same length.");
+        }
+        double[] centerXs = new double[n];
+        double[] centerYs = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (xmins[i] > xmaxs[i] || ymins[i] > ymaxs[i]) throw new IllegalArgumentException("Invalid rectangle " + i);
+            centerXs[i] = xmins[i] / 2 + xmaxs[i] / 2;
+            centerYs[i] = ymins[i] / 2 + ymaxs[i] / 2;
+        }
+        int[] order = order(centerXs, centerYs);
+
+        // every chunk collects the indices of its queries one after another, they are moved to their
+        // place once all counts are known
+        IndexList[] found = new IndexList[(n + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        int[] counts = new int[n];
+        forEachChunk(n, chunk -> {
+            IndexList indices = new IndexList(CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE, end = chunkEnd(chunk, n); i < end; i++) {
+                int query = order[i];
+                int before = indices.size();
+                tree.rangeIndices(xmins[query], ymins[query], xmaxs[query], ymaxs[query], indices);
+                counts[query] = indices.size() - before;
+            }
+            found[chunk] = indices;
+        });
+
+        int[] offsets = new int[n + 1];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            total += counts[i];
+            if (total > Integer.MAX_VALUE) throw new IllegalStateException("Too many points in range.");
+            offsets[i + 1] = (int) total;
+        }
+        int[] indices = new int[(int) total];
+        forEachChunk(n, chunk -> {
+            int from = 0;
+            for (int i = chunk * CHUNK_SIZE, end = chunkEnd(chunk, n); i < end; i++) {
+                int query = order[i];
+                found[chunk].copyTo(from, indices, offsets[query], counts[query]);
+                from += counts[query];
+            }
+        });
+        return new RangeResult(offsets, indices);
+    }
+
+    // indices of the queries in the order they are run
+    private int[] order(double[] xs, double[] ys) {
+        int[] order = new int[xs.length];
+        if (!mortonOrder) {
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+        long[] keys = new long[xs.length];
+        for (int i = 0; i < keys.length; i++) {
+            long code = spread(cell(xs[i], xmin, xmax)) | spread(cell(ys[i], ymin, ymax)) << 1;
+            keys[i] = code << 32 | i;
+        }
+        if (parallel) {
+            Arrays.parallelSort(keys);
+        } else {
+            Arrays.sort(keys);
+        }
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    // coordinate scaled to [0, 2^MORTON_BITS), queries outside of the tree bounds are clamped
+    private static int cell(double value, double min, double max) {
+        if (!(max > min)) return 0;
+        double scaled = (value - min) / (max - min) * ((1 << MORTON_BITS) - 1);
+        if (!(scaled > 0)) return 0;
+        return (int) Math.min(scaled, (1 << MORTON_BITS) - 1);
+    }
+
+    // moves bit i of the value to bit 2i
+    private static int spread(int value) {
+        value = (value | value << 8) & 0x00FF00FF;
+        value = (value | value << 4) & 0x0F0F0F0F;
+        value = (value | value << 2) & 0x33333333;
+        return (value | value << 1) & 0x55555555;
+    }
+
+    private static int chunkEnd(int chunk, int n) {
+        return Math.min(n, (chunk + 1) * CHUNK_SIZE);
+    }
+
+    private void forEachChunk(int n, IntConsumer task) {
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (parallel && chunks > 1) {
+            ForkJoinPool.commonPool().invoke(new ChunkAction(task, 0, chunks));
+        } else {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                task.accept(chunk);
+            }
+        }
+    }
+
+    private static class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer task;
+        private final int from, to;
+
+        ChunkAction(IntConsumer task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                task.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkAction(task, from, mid), new ChunkAction(task, mid, to));
+        }
+    }
+
+    // indices of the points in range of query q are indices[offsets[q]] .. indices[offsets[q + 1] - 1]
+    public static class RangeResult {
+        private final int[] offsets;
+        private final int[] indices;
+
+        private RangeResult(int[] offsets, int[] indices) {
+            this.offsets = offsets;
+            this.indices = indices;
+        }
+
+        public int queries() {
+            return offsets.length - 1;
+        }
+
+        // number of points in range of the query
+        public int count(int query) {
+            return offsets[query + 1] - offsets[query];
+        }
+
+        // i-th index in tree order of the points in range of the query
+        public int index(int query, int i) {
+            if (i < 0 || i >= count(query)) throw new IndexOutOfBoundsException();
+            return indices[offsets[query] + i];
+        }
+
+        // total number of points over all queries
+        public int size() {
+            return indices.length;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+
+import java.util.Random;
+
+// one call per query against FlatKdTreeBatch with and without Morton ordering and parallelism,
+// the results of every batch are checked against the one call per query loop
+public class FlatKdTreeBatchBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int queriesCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Random random = new Random(42);
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = new Point2D(random.nextDouble(), random.nextDouble());
+        }
+        FlatKdTree tree = new FlatKdTree(points);
+
+        double[] xs = new double[queriesCount];
+        double[] ys = new double[queriesCount];
+        double[] xmins = new double[queriesCount];
+        double[] ymins = new double[queriesCount];
+        double[] xmaxs = new double[queriesCount];
+        double[] ymaxs = new double[queriesCount];
+        for (int i = 0; i < queriesCount; i++) {
+            xs[i] = random.nextDouble();
+            ys[i] = random.nextDouble();
+            xmins[i] = xs[i];
+            ymins[i] = ys[i];
+            xmaxs[i] = xs[i] + 0.005;
+            ymaxs[i] = ys[i] + 0.005;
+        }
+
+        FlatKdTreeBatch[] batches = {
+                new FlatKdTreeBatch(tree, false, false),
+                new FlatKdTreeBatch(tree, false, true),
+                new FlatKdTreeBatch(tree, true, false),
+                new FlatKdTreeBatch(tree, true, true),
+        };
+        String[] names = {"sequential", "sequential morton", "parallel", "parallel morton"};
+
+        int[] expected = new int[queriesCount];
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < queriesCount; i++) {
+                expected[i] = tree.nearestIndex(xs[i], ys[i]);
+            }
+            long loopNanos = System.nanoTime() - start;
+            boolean last = round == 2;
+            if (last) {
+                System.out.printf("n=%d, %d queries%n", n, queriesCount);
+                System.out.printf("  nearest one by one      %8.1f ms%n", loopNanos / 1e6);
+            }
+            for (int b = 0; b < batches.length; b++) {
+                start = System.nanoTime();
+                int[] nearest = batches[b].nearest(xs, ys);
+                long nearestNanos = System.nanoTime() - start;
+                for (int i = 0; i < queriesCount; i++) {
+                    if (nearest[i] != expected[i]) throw new IllegalStateException(names[b] + ": query " + i);
+                }
+                start = System.nanoTime();
+                FlatKdTreeBatch.RangeResult range = batches[b].range(xmins, ymins, xmaxs, ymaxs);
+                long rangeNanos = System.nanoTime() - start;
+                if (last) {
+                    System.out.printf("  %-22s  nearest %8.1f ms, range %8.1f ms (%d points)%n",
+                            names[b], nearestNanos / 1e6, rangeNanos / 1e6, range.size());
+                }
+            }
+        }
+    }
+}
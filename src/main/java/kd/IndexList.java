@@ -0,0 +1,29 @@
+package kd;
+
+import java.util.Arrays;
+
+// growable list of int indices, collects query results without boxing into a List<Integer>
+class IndexList {
+    private int[] values;
+    private int size;
+
+    IndexList(int capacity) {
+        this.values = new int[Math.max(capacity, 8)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // copies count values starting at from into the destination array
+    void copyTo(int from, int[] destination, int destinationFrom, int count) {
+        System.arraycopy(values, from, destination, destinationFrom, count);
+    }
+}
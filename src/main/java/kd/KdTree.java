@@ -5,16 +5,58 @@ import edu.princeton.cs.algs4.RectHV;
 import edu.princeton.cs.algs4.StdDraw;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
 
+// insert and delete keep the tree balanced scapegoat style: a node deeper than log(1 / ALPHA) of the
+// size rebuilds the lowest ancestor which has a subtree heavier than ALPHA of its own size, and
+// the whole tree is rebuilt once deletes shrink it below ALPHA of its size since the last rebuild
 public class KdTree {
+    private static final double ALPHA = 0.7;
+    private static final BalancedBuilder.NodeFactory<Node<Point2D>> NODES = (value, vertical, left, right, size) -> {
+        Node<Point2D> node = new Node<>(value, vertical ? DIRECTION.VERTICAL : DIRECTION.HORIZONTAL);
+        node.left = left;
+        node.right = right;
+        node.size = size;
+        return node;
+    };
+
     private int size = 0;
+    private int maxSize = 0;
     private Node<Point2D> root = null;
+    // set by put() when the new node is too deep, cleared once a scapegoat is rebuilt
+    private boolean tooDeep;
 
     public KdTree() {
     }
 
+    // builds a balanced tree at once, duplicates are dropped
+    public KdTree(Point2D[] points) {
+        this(points, false);
+    }
+
+    // parallel builds fork the subtrees over the common fork-join pool
+    public KdTree(Point2D[] points, boolean parallel) {
+        if (points == null) throw new IllegalArgumentException();
+        for (Point2D point : points) {
+            if (point == null) throw new IllegalArgumentException();
+        }
+        Point2D[] sorted = points.clone();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i].compareTo(sorted[unique - 1]) != 0) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        this.root = BalancedBuilder.build(Arrays.copyOf(sorted, unique), true, parallel, NODES);
+        this.size = unique;
+        this.maxSize = unique;
+    }
+
     public boolean isEmpty() {
         return root == null;
     }
@@ -26,12 +68,15 @@ public class KdTree {
     public void insert(Point2D p) {
         if (p == null) throw new IllegalArgumentException();
 
-        root = put(root, p, DIRECTION.VERTICAL);
+        root = put(root, p, DIRECTION.VERTICAL, 0);
+        tooDeep = false;
+        maxSize = Math.max(maxSize, size);
     }
 
-    private Node<Point2D> put(Node<Point2D> node, Point2D p, DIRECTION direction) {
+    private Node<Point2D> put(Node<Point2D> node, Point2D p, DIRECTION direction, int depth) {
         if (node == null) {
             size++;
+            tooDeep = depth > maxDepth(size);
             return new Node<>(p, direction);
         }
 
@@ -39,14 +84,116 @@ public class KdTree {
         double pValue = direction.pointValue(p);
         if (node.value.compareTo(p) == 0) return node;
         if (pValue < nodeValue) {
-            node.left = put(node.left, p, direction.opposite());
+            node.left = put(node.left, p, direction.opposite(), depth + 1);
         }
         if (pValue >= nodeValue) {
-            node.right = put(node.right, p, direction.opposite());
+            node.right = put(node.right, p, direction.opposite(), depth + 1);
+        }
+        node.size = 1 + size(node.left) + size(node.right);
+        if (tooDeep && isUnbalanced(node)) {
+            tooDeep = false;
+            return rebuild(node);
+        }
+        return node;
+    }
+
+    // true when the point was in the set
+    public boolean delete(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        int sizeBefore = size;
+        root = remove(root, p);
+        if (size == sizeBefore) return false;
+        if (size < ALPHA * maxSize) {
+            root = rebuild(root);
+            maxSize = size;
+        }
+        return true;
+    }
+
+    // moves a point: false, with the set unchanged, when oldPoint is not in the set;
+    // newPoint merges with an equal point which is already there
+    public boolean update(Point2D oldPoint, Point2D newPoint) {
+        if (oldPoint == null || newPoint == null) throw new IllegalArgumentException();
+        if (oldPoint.compareTo(newPoint) == 0) return contains(oldPoint);
+        if (!delete(oldPoint)) return false;
+        insert(newPoint);
+        return true;
+    }
+
+    // a deleted node takes the point with the smallest coordinate along its axis from the right
+    // subtree; without a right subtree it takes the smallest one from the left subtree, which then
+    // becomes the right one, as left subtrees may only hold strictly smaller coordinates
+    private Node<Point2D> remove(Node<Point2D> node, Point2D p) {
+        if (node == null) return null;
+        DIRECTION direction = node.direction;
+        if (node.value.compareTo(p) == 0) {
+            if (node.right != null) {
+                Point2D replacement = min(node.right, direction).value;
+                node.value = replacement;
+                node.right = remove(node.right, replacement);
+            } else if (node.left != null) {
+                Point2D replacement = min(node.left, direction).value;
+                node.value = replacement;
+                node.right = remove(node.left, replacement);
+                node.left = null;
+            } else {
+                size--;
+                return null;
+            }
+        } else if (direction.pointValue(p) < direction.pointValue(node.value)) {
+            node.left = remove(node.left, p);
+        } else {
+            node.right = remove(node.right, p);
         }
+        node.size = 1 + size(node.left) + size(node.right);
         return node;
     }
 
+    // node of the subtree with the smallest coordinate along the axis
+    private static Node<Point2D> min(Node<Point2D> node, DIRECTION axis) {
+        if (node == null) return null;
+        if (node.direction == axis) {
+            return node.left == null ? node : min(node.left, axis);
+        }
+        Node<Point2D> min = node;
+        Node<Point2D> leftMin = min(node.left, axis);
+        if (leftMin != null && axis.pointValue(leftMin.value) < axis.pointValue(min.value)) {
+            min = leftMin;
+        }
+        Node<Point2D> rightMin = min(node.right, axis);
+        if (rightMin != null && axis.pointValue(rightMin.value) < axis.pointValue(min.value)) {
+            min = rightMin;
+        }
+        return min;
+    }
+
+    private static int size(Node<Point2D> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int maxDepth(int size) {
+        return (int) (Math.log(size) / Math.log(1 / ALPHA));
+    }
+
+    private static boolean isUnbalanced(Node<Point2D> node) {
+        return Math.max(size(node.left), size(node.right)) > ALPHA * node.size;
+    }
+
+    // balanced copy of the subtree, split directions start with the one of its root
+    private static Node<Point2D> rebuild(Node<Point2D> node) {
+        if (node == null) return null;
+        Point2D[] points = new Point2D[node.size];
+        collect(node, points, 0);
+        return BalancedBuilder.build(points, node.direction == DIRECTION.VERTICAL, false, NODES);
+    }
+
+    private static int collect(Node<Point2D> node, Point2D[] points, int index) {
+        if (node == null) return index;
+        points[index++] = node.value;
+        index = collect(node.left, points, index);
+        return collect(node.right, points, index);
+    }
+
     public boolean contains(Point2D p) {
         if (p == null) throw new IllegalArgumentException();
         Node<Point2D> node = root;
@@ -60,8 +207,22 @@ public class KdTree {
         return false;
     }
 
+    // split lines span the bounding box of the points, stretched to the default unit square canvas
     public void draw() {
-        draw(root, new RectHV(0, 0, 1, 1));
+        double[] bounds = {0, 0, 1, 1};
+        bounds(root, bounds);
+        draw(root, new RectHV(bounds[0], bounds[1], bounds[2], bounds[3]));
+    }
+
+    // widens {xmin, ymin, xmax, ymax} to cover the points of the subtree
+    private static void bounds(Node<Point2D> node, double[] bounds) {
+        if (node == null) return;
+        bounds[0] = Math.min(bounds[0], node.value.x());
+        bounds[1] = Math.min(bounds[1], node.value.y());
+        bounds[2] = Math.max(bounds[2], node.value.x());
+        bounds[3] = Math.max(bounds[3], node.value.y());
+        bounds(node.left, bounds);
+        bounds(node.right, bounds);
     }
 
     private void draw(Node<Point2D> node, RectHV rect) {
@@ -126,57 +287,197 @@ public class KdTree {
     public Point2D nearest(Point2D p) {
         if (p == null) throw new IllegalArgumentException();
         if (root == null) return null;
-        return nearest(root,
-                new RectHV(0, 0, 1, 1),
-                p,
-                new Tuple2(null, Double.MAX_VALUE)
-        )
-                .point;
+        return nearest(root, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, p.x(), p.y(), null).value;
     }
 
-    private Tuple2 nearest(Node<Point2D> node, RectHV rect, Point2D p, Tuple2 currentNearest) {
-        if (node == null) {
-            return currentNearest;
+    // the region of a node is carried as four primitive bounds and distances are compared squared,
+    // so a query allocates nothing; the best node is returned and its distance recomputed when needed
+    private Node<Point2D> nearest(Node<Point2D> node, double xmin, double ymin, double xmax, double ymax,
+                                  double x, double y, Node<Point2D> best) {
+        if (node == null) return best;
+        double bestDistance = best == null ? Double.POSITIVE_INFINITY : distanceSquared(best.value, x, y);
+        if (distanceSquaredToRect(xmin, ymin, xmax, ymax, x, y) >= bestDistance) return best;
+
+        if (distanceSquared(node.value, x, y) < bestDistance) {
+            best = node;
         }
 
-        double distance = node.value.distanceTo(p);
+        if (node.direction == DIRECTION.VERTICAL) {
+            double split = node.value.x();
+            if (x < split) {
+                best = nearest(node.left, xmin, ymin, split, ymax, x, y, best);
+                best = nearest(node.right, split, ymin, xmax, ymax, x, y, best);
+            } else {
+                best = nearest(node.right, split, ymin, xmax, ymax, x, y, best);
+                best = nearest(node.left, xmin, ymin, split, ymax, x, y, best);
+            }
+        } else {
+            double split = node.value.y();
+            if (y < split) {
+                best = nearest(node.left, xmin, ymin, xmax, split, x, y, best);
+                best = nearest(node.right, xmin, split, xmax, ymax, x, y, best);
+            } else {
+                best = nearest(node.right, xmin, split, xmax, ymax, x, y, best);
+                best = nearest(node.left, xmin, ymin, xmax, split, x, y, best);
+            }
+        }
+        return best;
+    }
+
+    private static double distanceSquared(Point2D point, double x, double y) {
+        double dx = x - point.x();
+        double dy = y - point.y();
+        return dx * dx + dy * dy;
+    }
 
-        if (distance < currentNearest.distance) {
-            currentNearest = new Tuple2(node.value, distance);
+    // the k points nearest to p, closest first
+    public Iterable<Point2D> kNearest(Point2D p, int k) {
+        if (p == null) throw new IllegalArgumentException();
+        if (k < 0) throw new IllegalArgumentException("k cannot be negative.");
+        BoundedMaxHeap heap = new BoundedMaxHeap(Math.min(k, size));
+        if (k > 0) {
+            kNearest(root, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                    Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, p.x(), p.y(), heap);
         }
+        return heap.drainAscending();
+    }
 
-        RectHV leftRect = leftRect(node, rect);
-        RectHV rightRect = rightRect(node, rect);
+    // the node's region is carried as four primitive bounds instead of a RectHV per visited node
+    private void kNearest(Node<Point2D> node, double xmin, double ymin, double xmax, double ymax,
+                          double x, double y, BoundedMaxHeap heap) {
+        if (node == null) return;
+        if (heap.isFull() && distanceSquaredToRect(xmin, ymin, xmax, ymax, x, y) >= heap.maxKey()) return;
+
+        double nodeX = node.value.x();
+        double nodeY = node.value.y();
+        double dx = x - nodeX;
+        double dy = y - nodeY;
+        heap.offer(node.value, dx * dx + dy * dy);
 
-        Node<Point2D> sameSideNode;
-        RectHV sameSideRect;
-        Node<Point2D> otherSideNode;
-        RectHV otherSideRect;
-        if (node.direction.pointValue(p) < node.direction.pointValue(node.value)) {
-            sameSideNode = node.left;
-            sameSideRect = leftRect;
-            otherSideNode = node.right;
-            otherSideRect = rightRect;
+        if (node.direction == DIRECTION.VERTICAL) {
+            if (dx < 0) {
+                kNearest(node.left, xmin, ymin, nodeX, ymax, x, y, heap);
+                kNearest(node.right, nodeX, ymin, xmax, ymax, x, y, heap);
+            } else {
+                kNearest(node.right, nodeX, ymin, xmax, ymax, x, y, heap);
+                kNearest(node.left, xmin, ymin, nodeX, ymax, x, y, heap);
+            }
+        } else {
+            if (dy < 0) {
+                kNearest(node.left, xmin, ymin, xmax, nodeY, x, y, heap);
+                kNearest(node.right, xmin, nodeY, xmax, ymax, x, y, heap);
+            } else {
+                kNearest(node.right, xmin, nodeY, xmax, ymax, x, y, heap);
+                kNearest(node.left, xmin, ymin, xmax, nodeY, x, y, heap);
+            }
+        }
+    }
+
+    // all points within distance r of p, inclusive
+    public Iterable<Point2D> withinRadius(Point2D p, double r) {
+        if (p == null) throw new IllegalArgumentException();
+        if (!(r >= 0)) throw new IllegalArgumentException("Radius must be non-negative.");
+        List<Point2D> result = new ArrayList<>();
+        withinRadius(root, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, p.x(), p.y(), r * r, result);
+        return result;
+    }
+
+    private void withinRadius(Node<Point2D> node, double xmin, double ymin, double xmax, double ymax,
+                              double x, double y, double radiusSquared, List<Point2D> pointsInRadius) {
+        if (node == null) return;
+        if (distanceSquaredToRect(xmin, ymin, xmax, ymax, x, y) > radiusSquared) return;
+
+        double nodeX = node.value.x();
+        double nodeY = node.value.y();
+        double dx = x - nodeX;
+        double dy = y - nodeY;
+        if (dx * dx + dy * dy <= radiusSquared) {
+            pointsInRadius.add(node.value);
+        }
+
+        if (node.direction == DIRECTION.VERTICAL) {
+            withinRadius(node.left, xmin, ymin, nodeX, ymax, x, y, radiusSquared, pointsInRadius);
+            withinRadius(node.right, nodeX, ymin, xmax, ymax, x, y, radiusSquared, pointsInRadius);
         } else {
-            sameSideNode = node.right;
-            sameSideRect = rightRect;
-            otherSideNode = node.left;
-            otherSideRect = leftRect;
+            withinRadius(node.left, xmin, ymin, xmax, nodeY, x, y, radiusSquared, pointsInRadius);
+            withinRadius(node.right, xmin, nodeY, xmax, ymax, x, y, radiusSquared, pointsInRadius);
+        }
+    }
+
+    // same as RectHV.distanceSquaredTo, bounds may be infinite
+    private static double distanceSquaredToRect(double xmin, double ymin, double xmax, double ymax,
+                                                double x, double y) {
+        double dx = 0;
+        double dy = 0;
+        if (x < xmin) dx = xmin - x;
+        else if (x > xmax) dx = x - xmax;
+        if (y < ymin) dy = ymin - y;
+        else if (y > ymax) dy = y - ymax;
+        return dx * dx + dy * dy;
+    }
+
+    // the k smallest keys seen so far, the largest of them on top
+    private static class BoundedMaxHeap {
+        private final double[] keys;
+        private final Point2D[] points;
+        private int size;
+
+        BoundedMaxHeap(int capacity) {
+            this.keys = new double[capacity];
+            this.points = new Point2D[capacity];
+        }
+
+        boolean isFull() {
+            return size == keys.length;
         }
 
-        Tuple2 sameSideNearest = nearest(sameSideNode, sameSideRect, p, currentNearest);
-        if (sameSideNearest.distance < currentNearest.distance) {
-            currentNearest = sameSideNearest;
+        double maxKey() {
+            return keys[0];
+        }
+
+        void offer(Point2D point, double key) {
+            if (isFull()) {
+                if (size == 0 || key >= keys[0]) return;
+                siftDown(0, point, key);
+                return;
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] >= key) break;
+                keys[i] = keys[parent];
+                points[i] = points[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            points[i] = point;
         }
 
-        if (otherSideRect.distanceTo(p) < currentNearest.distance) {
-            Tuple2 otherSideNearest = nearest(otherSideNode, otherSideRect, p, currentNearest);
-            if (otherSideNearest.distance < currentNearest.distance) {
-                currentNearest = otherSideNearest;
+        private void siftDown(int i, Point2D point, double key) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] > keys[child]) child++;
+                if (keys[child] <= key) break;
+                keys[i] = keys[child];
+                points[i] = points[child];
+                i = child;
             }
+            keys[i] = key;
+            points[i] = point;
         }
 
-        return currentNearest;
+        List<Point2D> drainAscending() {
+            Point2D[] ascending = new Point2D[size];
+            while (size > 0) {
+                ascending[size - 1] = points[0];
+                size--;
+                siftDown(0, points[size], keys[size]);
+            }
+            return Arrays.asList(ascending);
+        }
     }
 
     private RectHV leftRect(Node<Point2D> node, RectHV parentRect) {
@@ -193,20 +494,146 @@ public class KdTree {
                 new RectHV(node.value.x(), parentRect.ymin(), parentRect.xmax(), parentRect.ymax());
     }
 
-    private static class Tuple2 {
-        private final Point2D point;
-        private final double distance;
+    // number of nodes on the longest root to leaf path
+    int height() {
+        return height(root);
+    }
+
+    private int height(Node<Point2D> node) {
+        if (node == null) return 0;
+        return 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    // median split over primitive coordinate arrays: the node of a subtree is the median of its
+    // points along the split axis, moved left to the first point with that coordinate, so left
+    // subtrees hold strictly smaller coordinates, just like after insert(). nodes are made by the
+    // factory once their children are built, so it also builds the immutable ConcurrentKdTree nodes
+    static class BalancedBuilder<N> extends RecursiveTask<N> {
+        private static final long serialVersionUID = 1L;
+        private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+        interface NodeFactory<N> {
+            // size is the number of nodes in the subtree
+            N node(Point2D value, boolean vertical, N left, N right, int size);
+        }
+
+        private final NodeFactory<N> factory;
+        private final Point2D[] points;
+        private final double[] xs;
+        private final double[] ys;
+        private final int[] order;
+        private final int lo;
+        private final int hi;
+        private final boolean vertical;
+        private final boolean parallel;
+
+        private BalancedBuilder(NodeFactory<N> factory, Point2D[] points, double[] xs, double[] ys, int[] order,
+                                int lo, int hi, boolean vertical, boolean parallel) {
+            this.factory = factory;
+            this.points = points;
+            this.xs = xs;
+            this.ys = ys;
+            this.order = order;
+            this.lo = lo;
+            this.hi = hi;
+            this.vertical = vertical;
+            this.parallel = parallel;
+        }
+
+        // points must not contain duplicates
+        static <N> N build(Point2D[] points, boolean vertical, boolean parallel, NodeFactory<N> factory) {
+            int n = points.length;
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = points[i].x();
+                ys[i] = points[i].y();
+                order[i] = i;
+            }
+            BalancedBuilder<N> builder = new BalancedBuilder<>(factory, points, xs, ys, order, 0, n, vertical, parallel);
+            return parallel && n >= PARALLEL_THRESHOLD ? ForkJoinPool.commonPool().invoke(builder) : builder.compute();
+        }
+
+        @Override
+        protected N compute() {
+            return build(lo, hi, vertical);
+        }
+
+        private N build(int from, int to, boolean vertical) {
+            if (from >= to) return null;
+            double[] keys = vertical ? xs : ys;
+            int mid = (from + to) >>> 1;
+            select(keys, from, to - 1, mid);
+
+            // points equal to the median go right, the first of them becomes the node
+            double median = keys[order[mid]];
+            int nodeIndex = mid;
+            for (int i = from; i < nodeIndex; ) {
+                if (keys[order[i]] == median) {
+                    swap(i, --nodeIndex);
+                } else {
+                    i++;
+                }
+            }
+
+            N left;
+            N right;
+            if (parallel && to - from >= PARALLEL_THRESHOLD) {
+                BalancedBuilder<N> leftTask = new BalancedBuilder<>(factory, points, xs, ys, order, from, nodeIndex,
+                        !vertical, true);
+                leftTask.fork();
+                right = build(nodeIndex + 1, to, !vertical);
+                left = leftTask.join();
+            } else {
+                left = build(from, nodeIndex, !vertical);
+                right = build(nodeIndex + 1, to, !vertical);
+            }
+            return factory.node(points[order[nodeIndex]], vertical, left, right, to - from);
+        }
+
+        // quickselect: puts the k-th smallest key of order[left..right] to position k,
+        // smaller or equal keys before it and greater or equal keys after it
+        private void select(double[] keys, int left, int right, int k) {
+            while (right > left) {
+                double pivot = keys[order[left + ThreadLocalRandom.current().nextInt(right - left + 1)]];
+                // three way partition: [left, lt) < pivot, [lt, gt] == pivot, (gt, right] > pivot
+                int lt = left;
+                int gt = right;
+                int i = left;
+                while (i <= gt) {
+                    double key = keys[order[i]];
+                    if (key < pivot) {
+                        swap(lt++, i++);
+                    } else if (key > pivot) {
+                        swap(i, gt--);
+                    } else {
+                        i++;
+                    }
+                }
+                if (k < lt) {
+                    right = lt - 1;
+                } else if (k > gt) {
+                    left = gt + 1;
+                } else {
+                    return;
+                }
+            }
+        }
 
-        public Tuple2(Point2D point, double distance) {
-            this.point = point;
-            this.distance = distance;
+        private void swap(int i, int j) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
         }
     }
 
     private static class Node<T> {
-        private final T value;
+        private T value;
         private Node<T> left, right;
         private final DIRECTION direction;
+        // number of nodes in the subtree
+        private int size = 1;
 
         public Node(T value, DIRECTION direction) {
             this.value = value;
@@ -217,21 +644,25 @@ public class KdTree {
     }
 
     private enum DIRECTION {
-        HORIZONTAL(Point2D::y), VERTICAL(Point2D::x);
-
-        private final Function<Point2D, Double> pointValueExtractor;
-
-        DIRECTION(Function<Point2D, Double> pointValueExtractor) {
-            this.pointValueExtractor = pointValueExtractor;
-        }
+        // constant specific bodies instead of a Function<Point2D, Double>, which boxed every coordinate
+        HORIZONTAL {
+            @Override
+            public double pointValue(Point2D p) {
+                return p.y();
+            }
+        },
+        VERTICAL {
+            @Override
+            public double pointValue(Point2D p) {
+                return p.x();
+            }
+        };
 
         public DIRECTION opposite() {
             return this == VERTICAL ? HORIZONTAL : VERTICAL;
         }
 
-        public double pointValue(Point2D p) {
-            return pointValueExtractor.apply(p);
-        }
+        public abstract double pointValue(Point2D p);
     }
 
 //    public static void main(String[] args) {
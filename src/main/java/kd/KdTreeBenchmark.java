@@ -0,0 +1,111 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+// compares incremental insert() with the balanced bulk build on uniform and sorted input:
+// build time, tree height and the time of nearest() queries on the result and on FlatKdTree;
+// then the bytes allocated per nearest() query, read from the per thread allocation counter
+public class KdTreeBenchmark {
+
+    private static Point2D[] uniform(int n, Random random) {
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = new Point2D(random.nextDouble(), random.nextDouble());
+        }
+        return points;
+    }
+
+    private static void measure(String name, Point2D[] points, Point2D[] queries) {
+        long start = System.nanoTime();
+        KdTree incremental = new KdTree();
+        for (Point2D point : points) {
+            incremental.insert(point);
+        }
+        long incrementalNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        KdTree bulk = new KdTree(points);
+        long bulkNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        KdTree parallel = new KdTree(points, true);
+        long parallelNanos = System.nanoTime() - start;
+
+        System.out.printf("%-8s n=%d%n", name, points.length);
+        System.out.printf("  build: insert %8.1f ms, bulk %8.1f ms, parallel bulk %8.1f ms%n",
+                incrementalNanos / 1e6, bulkNanos / 1e6, parallelNanos / 1e6);
+        System.out.printf("  height: insert %d, bulk %d, parallel bulk %d%n",
+                incremental.height(), bulk.height(), parallel.height());
+        FlatKdTree flat = new FlatKdTree(points);
+        System.out.printf("  %d nearest(): insert %8.1f ms, bulk %8.1f ms, flat %8.1f ms%n", queries.length,
+                nearestMillis(incremental, queries), nearestMillis(bulk, queries), nearestMillis(flat, queries));
+    }
+
+    private static double nearestMillis(FlatKdTree tree, Point2D[] queries) {
+        long start = System.nanoTime();
+        double checksum = 0;
+        for (Point2D query : queries) {
+            checksum += tree.x(tree.nearestIndex(query.x(), query.y()));
+        }
+        if (Double.isNaN(checksum)) throw new IllegalStateException();
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    private static double nearestMillis(KdTree tree, Point2D[] queries) {
+        long start = System.nanoTime();
+        double checksum = 0;
+        for (Point2D query : queries) {
+            checksum += tree.nearest(query).x();
+        }
+        if (Double.isNaN(checksum)) throw new IllegalStateException();
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    // -1 when the JVM does not count allocated bytes per thread
+    private static double allocatedBytesPerQuery(KdTree tree, Point2D[] queries) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long threadId = Thread.currentThread().getId();
+        double checksum = 0;
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (Point2D query : queries) {
+            checksum += tree.nearest(query).x();
+        }
+        long after = allocations.getThreadAllocatedBytes(threadId);
+        if (Double.isNaN(checksum)) throw new IllegalStateException();
+        return (double) (after - before) / queries.length;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int queriesCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        Random random = new Random(42);
+        Point2D[] queries = uniform(queriesCount, random);
+
+        Point2D[] points = uniform(n, random);
+        for (int i = 0; i < 5; i++) {
+            KdTree tree = new KdTree(points, i % 2 == 0);
+            nearestMillis(tree, queries);
+            nearestMillis(new FlatKdTree(points), queries);
+        }
+        measure("uniform", points, queries);
+
+        // sorted input degenerates the incremental tree into a list
+        Arrays.sort(points, (a, b) -> Double.compare(a.x(), b.x()));
+        measure("sorted", points, queries);
+
+        KdTree tree = new KdTree(points);
+        for (int i = 0; i < 5; i++) {
+            allocatedBytesPerQuery(tree, queries);
+        }
+        System.out.printf("allocated per nearest(): %.1f bytes%n", allocatedBytesPerQuery(tree, queries));
+    }
+}
@@ -0,0 +1,68 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// moving objects: every epoch moves a share of the points half way towards an attractor which
+// travels along the diagonal, so new points keep landing in a small region of the tree; reports
+// tree height and latency percentiles of update() and nearest() per epoch
+public class KdTreeChurnBenchmark {
+
+    private static String percentiles(long[] nanos) {
+        Arrays.sort(nanos);
+        return String.format("p50 %6.2f us, p99 %7.2f us, p99.9 %8.2f us, max %8.2f us",
+                percentile(nanos, 0.5), percentile(nanos, 0.99), percentile(nanos, 0.999),
+                nanos[nanos.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.floor(p * sortedNanos.length))] / 1e3;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int epochs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int updatesPerEpoch = args.length > 2 ? Integer.parseInt(args[2]) : n / 4;
+        int queriesPerEpoch = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+        Random random = new Random(42);
+
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = new Point2D(random.nextDouble(), random.nextDouble());
+        }
+        KdTree tree = new KdTree(points);
+        long[] updateNanos = new long[updatesPerEpoch];
+        long[] queryNanos = new long[queriesPerEpoch];
+        double checksum = 0;
+
+        System.out.printf("n=%d, %d updates and %d nearest() per epoch%n", n, updatesPerEpoch, queriesPerEpoch);
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            double attractor = (epoch + 0.5) / epochs;
+            for (int u = 0; u < updatesPerEpoch; u++) {
+                int i = random.nextInt(n);
+                Point2D moved = new Point2D(
+                        (points[i].x() + attractor) / 2 + random.nextGaussian() * 1e-3,
+                        (points[i].y() + attractor) / 2 + random.nextGaussian() * 1e-3);
+                long start = System.nanoTime();
+                if (!tree.update(points[i], moved)) {
+                    // another point had already moved to the same place and merged with this one
+                    tree.insert(moved);
+                }
+                updateNanos[u] = System.nanoTime() - start;
+                points[i] = moved;
+            }
+
+            for (int q = 0; q < queriesPerEpoch; q++) {
+                Point2D query = new Point2D(random.nextDouble(), random.nextDouble());
+                long start = System.nanoTime();
+                checksum += tree.nearest(query).x();
+                queryNanos[q] = System.nanoTime() - start;
+            }
+            System.out.printf("epoch %2d, height %3d%n  update:  %s%n  nearest: %s%n", epoch, tree.height(),
+                    percentiles(updateNanos), percentiles(queryNanos));
+        }
+        if (Double.isNaN(checksum)) throw new IllegalStateException();
+    }
+}
@@ -0,0 +1,300 @@
+package kd;
+
+import java.util.Arrays;
+
+// static kd-tree over points with any number of dimensions, laid out like FlatKdTree: coordinates
+// of the points in tree order in one array, point i at [i * dimensions, (i + 1) * dimensions), the
+// root of [lo, hi) at (lo + hi) / 2 and the split axis cycling with depth. duplicates are kept.
+// searches track the distance from the query to the cell of a subtree incrementally, one axis
+// offset at a time, starting from the bounding box of the tree
+public class KdTreeN {
+    private final int dimensions;
+    private final int size;
+    private final double[] coordinates;
+    private final double[] min;
+    private final double[] max;
+
+    // the bounding box is the one of the points
+    public KdTreeN(double[][] points) {
+        this(points, null, null);
+    }
+
+    // every point must lie inside the box [min, max]
+    public KdTreeN(double[][] points, double[] min, double[] max) {
+        if (points == null || points.length == 0 || points[0] == null) {
+            throw new IllegalArgumentException("At least one point is required.");
+        }
+        this.dimensions = points[0].length;
+        if (dimensions == 0) throw new IllegalArgumentException("Points must have at least one dimension.");
+        this.size = points.length;
+        this.coordinates = new double[size * dimensions];
+        for (int i = 0; i < size; i++) {
+            if (points[i] == null || points[i].length != dimensions) {
+                throw new IllegalArgumentException("Point " + i + " must have " + dimensions + " coordinates.");
+            }
+            for (int axis = 0; axis < dimensions; axis++) {
+                if (Double.isNaN(points[i][axis])) throw new IllegalArgumentException("Point " + i + " is NaN.");
+                coordinates[i * dimensions + axis] = points[i][axis];
+            }
+        }
+
+        if (min == null && max == null) {
+            this.min = new double[dimensions];
+            this.max = new double[dimensions];
+            Arrays.fill(this.min, Double.POSITIVE_INFINITY);
+            Arrays.fill(this.max, Double.NEGATIVE_INFINITY);
+            for (int i = 0; i < size; i++) {
+                for (int axis = 0; axis < dimensions; axis++) {
+                    this.min[axis] = Math.min(this.min[axis], coordinates[i * dimensions + axis]);
+                    this.max[axis] = Math.max(this.max[axis], coordinates[i * dimensions + axis]);
+                }
+            }
+        } else {
+            if (min == null || max == null || min.length != dimensions || max.length != dimensions) {
+                throw new IllegalArgumentException("Box must have " + dimensions + " coordinates.");
+            }
+            this.min = min.clone();
+            this.max = max.clone();
+            for (int i = 0; i < size; i++) {
+                for (int axis = 0; axis < dimensions; axis++) {
+                    double value = coordinates[i * dimensions + axis];
+                    if (value < min[axis] || value > max[axis]) {
+                        throw new IllegalArgumentException("Point " + i + " is outside of the box.");
+                    }
+                }
+            }
+        }
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        build(order, 0, size, 0);
+        double[] input = coordinates.clone();
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(input, order[i] * dimensions, coordinates, i * dimensions, dimensions);
+        }
+    }
+
+    private void build(int[] order, int lo, int hi, int axis) {
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        select(order, lo, hi - 1, mid, axis);
+        int next = axis + 1 == dimensions ? 0 : axis + 1;
+        build(order, lo, mid, next);
+        build(order, mid + 1, hi, next);
+    }
+
+    // quickselect of order[left..right] by the coordinates of the input points along the axis
+    private void select(int[] order, int left, int right, int k, int axis) {
+        while (right > left) {
+            double pivot = coordinates[order[(left + right) >>> 1] * dimensions + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinates[order[i] * dimensions + axis] < pivot) i++;
+                while (coordinates[order[j] * dimensions + axis] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // coordinate of the point with the given index in tree order
+    public double coordinate(int index, int axis) {
+        validateIndex(index);
+        if (axis < 0 || axis >= dimensions) throw new IllegalArgumentException("Axis is outside of valid range.");
+        return coordinates[index * dimensions + axis];
+    }
+
+    public double[] point(int index) {
+        validateIndex(index);
+        return Arrays.copyOfRange(coordinates, index * dimensions, (index + 1) * dimensions);
+    }
+
+    private void validateIndex(int index) {
+        if (index < 0 || index >= size) throw new IllegalArgumentException("Index is outside of valid range.");
+    }
+
+    // index of a point nearest to the query
+    public int nearest(double[] query) {
+        return kNearest(query, 1)[0];
+    }
+
+    // indices of the k points nearest to the query, closest first
+    public int[] kNearest(double[] query, int k) {
+        checkQuery(query);
+        if (k < 0) throw new IllegalArgumentException("k cannot be negative.");
+        if (k == 0) return new int[0];
+        Search search = new Search(query, Math.min(k, size));
+        double distance = 0;
+        for (int axis = 0; axis < dimensions; axis++) {
+            double offset = 0;
+            if (query[axis] < min[axis]) offset = min[axis] - query[axis];
+            else if (query[axis] > max[axis]) offset = query[axis] - max[axis];
+            search.offsets[axis] = offset;
+            distance += offset * offset;
+        }
+        search(0, size, 0, distance, search);
+        return search.drainAscending();
+    }
+
+    // distance is the squared distance from the query to the cell of [lo, hi)
+    private void search(int lo, int hi, int axis, double distance, Search search) {
+        if (lo >= hi || (search.isFull() && distance >= search.maxKey())) return;
+        int mid = (lo + hi) >>> 1;
+        search.offer(mid, distanceSquared(mid, search.query));
+
+        double diff = search.query[axis] - coordinates[mid * dimensions + axis];
+        int next = axis + 1 == dimensions ? 0 : axis + 1;
+        int farLo;
+        int farHi;
+        if (diff < 0) {
+            search(lo, mid, next, distance, search);
+            farLo = mid + 1;
+            farHi = hi;
+        } else {
+            search(mid + 1, hi, next, distance, search);
+            farLo = lo;
+            farHi = mid;
+        }
+        // the far cell lies beyond the split plane, only the offset along this axis changes
+        double offset = search.offsets[axis];
+        search.offsets[axis] = Math.abs(diff);
+        search(farLo, farHi, next, distance - offset * offset + diff * diff, search);
+        search.offsets[axis] = offset;
+    }
+
+    // indices of the points inside the box [lo, hi], bounds included
+    public int[] range(double[] lo, double[] hi) {
+        checkQuery(lo);
+        checkQuery(hi);
+        IndexList indices = new IndexList(16);
+        range(0, size, 0, lo, hi, indices);
+        int[] result = new int[indices.size()];
+        indices.copyTo(0, result, 0, result.length);
+        return result;
+    }
+
+    private void range(int from, int to, int axis, double[] lo, double[] hi, IndexList indices) {
+        if (from >= to) return;
+        int mid = (from + to) >>> 1;
+        boolean inside = true;
+        for (int a = 0; a < dimensions && inside; a++) {
+            double value = coordinates[mid * dimensions + a];
+            inside = value >= lo[a] && value <= hi[a];
+        }
+        if (inside) {
+            indices.add(mid);
+        }
+        double split = coordinates[mid * dimensions + axis];
+        int next = axis + 1 == dimensions ? 0 : axis + 1;
+        if (lo[axis] <= split) {
+            range(from, mid, next, lo, hi, indices);
+        }
+        if (hi[axis] >= split) {
+            range(mid + 1, to, next, lo, hi, indices);
+        }
+    }
+
+    private void checkQuery(double[] query) {
+        if (query == null || query.length != dimensions) {
+            throw new IllegalArgumentException("Query must have " + dimensions + " coordinates.");
+        }
+    }
+
+    private double distanceSquared(int index, double[] query) {
+        double distance = 0;
+        int offset = index * dimensions;
+        for (int axis = 0; axis < dimensions; axis++) {
+            double d = query[axis] - coordinates[offset + axis];
+            distance += d * d;
+        }
+        return distance;
+    }
+
+    // per query state: distances from the query to the current cell along every axis and the k
+    // nearest points seen so far in a max-heap on their squared distances
+    private static class Search {
+        private final double[] query;
+        private final double[] offsets;
+        private final double[] keys;
+        private final int[] indices;
+        private int size;
+
+        Search(double[] query, int k) {
+            this.query = query;
+            this.offsets = new double[query.length];
+            this.keys = new double[k];
+            this.indices = new int[k];
+        }
+
+        boolean isFull() {
+            return size == keys.length;
+        }
+
+        double maxKey() {
+            return keys[0];
+        }
+
+        void offer(int index, double key) {
+            if (size < keys.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (keys[parent] >= key) break;
+                    keys[i] = keys[parent];
+                    indices[i] = indices[parent];
+                    i = parent;
+                }
+                keys[i] = key;
+                indices[i] = index;
+            } else if (key < keys[0]) {
+                siftDown(index, key);
+            }
+        }
+
+        private void siftDown(int index, double key) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] > keys[child]) child++;
+                if (keys[child] <= key) break;
+                keys[i] = keys[child];
+                indices[i] = indices[child];
+                i = child;
+            }
+            keys[i] = key;
+            indices[i] = index;
+        }
+
+        int[] drainAscending() {
+            int[] ascending = new int[size];
+            while (size > 0) {
+                ascending[size - 1] = indices[0];
+                size--;
+                siftDown(indices[size], keys[size]);
+            }
+            return ascending;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package kd;
+
+import java.util.Random;
+
+// nearest() and kNearest() of KdTreeN against a brute force scan on uniform points for a growing
+// number of dimensions; the speedup falls towards 1 once the tree has to visit most of the points
+public class KdTreeNBenchmark {
+
+    private static double[][] uniform(int n, int dimensions, Random random) {
+        double[][] points = new double[n][dimensions];
+        for (double[] point : points) {
+            for (int axis = 0; axis < dimensions; axis++) {
+                point[axis] = random.nextDouble();
+            }
+        }
+        return points;
+    }
+
+    private static double distanceSquared(double[] a, double[] b) {
+        double distance = 0;
+        for (int axis = 0; axis < a.length; axis++) {
+            double d = a[axis] - b[axis];
+            distance += d * d;
+        }
+        return distance;
+    }
+
+    private static double bruteForceNearest(double[][] points, double[] query) {
+        double best = Double.POSITIVE_INFINITY;
+        for (double[] point : points) {
+            best = Math.min(best, distanceSquared(point, query));
+        }
+        return best;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queriesCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int k = 10;
+        Random random = new Random(42);
+
+        System.out.printf("n=%d, %d queries%n", n, queriesCount);
+        for (int dimensions : new int[]{2, 3, 4, 6, 8, 12, 16}) {
+            double[][] points = uniform(n, dimensions, random);
+            double[][] queries = uniform(queriesCount, dimensions, random);
+            KdTreeN tree = new KdTreeN(points);
+
+            long start = System.nanoTime();
+            double[] expected = new double[queriesCount];
+            for (int q = 0; q < queriesCount; q++) {
+                expected[q] = bruteForceNearest(points, queries[q]);
+            }
+            long bruteNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int q = 0; q < queriesCount; q++) {
+                double distance = distanceSquared(tree.point(tree.nearest(queries[q])), queries[q]);
+                if (distance != expected[q]) throw new IllegalStateException("Wrong nearest for query " + q);
+            }
+            long nearestNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long checksum = 0;
+            for (double[] query : queries) {
+                checksum += tree.kNearest(query, k)[k - 1];
+            }
+            long kNearestNanos = System.nanoTime() - start;
+            if (checksum < 0) throw new IllegalStateException();
+
+            System.out.printf("  d=%2d: brute force %8.1f ms, nearest %8.1f ms (x%5.1f), %d-nearest %8.1f ms%n",
+                    dimensions, bruteNanos / 1e6, nearestNanos / 1e6, (double) bruteNanos / nearestNanos,
+                    k, kNearestNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// randomized cross-check of KdTree kNearest() and withinRadius() against PointSET brute force;
+// grids of few distinct coordinates produce plenty of duplicates and distance ties, so results
+// are compared as sorted lists of distances
+public class KdTreeValidation {
+
+    private static List<Double> distances(Iterable<Point2D> points, Point2D p) {
+        List<Double> distances = new ArrayList<>();
+        for (Point2D point : points) {
+            distances.add(p.distanceSquaredTo(point));
+        }
+        Collections.sort(distances);
+        return distances;
+    }
+
+    private static Point2D randomPoint(Random random, int grid) {
+        if (grid == 0) {
+            // also outside of the unit square
+            return new Point2D(random.nextDouble() * 3 - 1, random.nextDouble() * 3 - 1);
+        }
+        return new Point2D((double) random.nextInt(grid + 1) / grid, (double) random.nextInt(grid + 1) / grid);
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        Random random = new Random(seed);
+        for (int round = 0; round < rounds; round++) {
+            int n = random.nextInt(500);
+            int grid = random.nextInt(20);
+            KdTree kdTree = new KdTree();
+            PointSET brute = new PointSET();
+            List<Point2D> points = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                Point2D point = randomPoint(random, grid);
+                points.add(point);
+                brute.insert(point);
+                kdTree.insert(point);
+            }
+            if (round % 2 == 0) {
+                kdTree = new KdTree(points.toArray(new Point2D[0]));
+            }
+
+            for (int query = 0; query < 20; query++) {
+                Point2D p = randomPoint(random, query % 2 == 0 ? 0 : grid);
+                int k = random.nextInt(n + 2);
+                double previous = -1;
+                for (Point2D point : kdTree.kNearest(p, k)) {
+                    if (p.distanceSquaredTo(point) < previous) {
+                        throw new IllegalStateException("kNearest is not ordered, seed " + seed + ", round " + round);
+                    }
+                    previous = p.distanceSquaredTo(point);
+                }
+                if (!distances(kdTree.kNearest(p, k), p).equals(distances(brute.kNearest(p, k), p))) {
+                    throw new IllegalStateException("kNearest mismatch, seed " + seed + ", round " + round);
+                }
+                double r = random.nextDouble() * 0.5;
+                if (!distances(kdTree.withinRadius(p, r), p).equals(distances(brute.withinRadius(p, r), p))) {
+                    throw new IllegalStateException("withinRadius mismatch, seed " + seed + ", round " + round);
+                }
+            }
+        }
+        System.out.println(rounds + " rounds passed, seed " + seed);
+    }
+}
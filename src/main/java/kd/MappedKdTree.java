@@ -0,0 +1,163 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// read-only FlatKdTree queried straight from a file written by FlatKdTree.save: the file is
+// mapped into memory and nothing is deserialized, so opening costs a few page faults and the
+// points stay off-heap in the page cache, shared by every process which maps the same file.
+// file format, little endian: int magic, int version, long count, then count (x, y) pairs in
+// the tree order of FlatKdTree. one mapping holds at most MAX_POINTS points
+public class MappedKdTree {
+    static final int MAGIC = 0x4B445432;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int MAX_POINTS = (Integer.MAX_VALUE - HEADER_BYTES) / (2 * Double.BYTES);
+
+    private final DoubleBuffer coordinates;
+    private final int size;
+
+    public MappedKdTree(Path path) throws IOException {
+        if (path == null) throw new IllegalArgumentException();
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) throw new IOException("Not a kd-tree index: " + path);
+            if (fileSize > Integer.MAX_VALUE) throw new IOException("Index is too large to map: " + path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) throw new IOException("Not a kd-tree index: " + path);
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported index version " + buffer.getInt(4) + ": " + path);
+            }
+            long count = buffer.getLong(8);
+            if (count < 0 || count > MAX_POINTS || HEADER_BYTES + count * 2 * Double.BYTES != fileSize) {
+                throw new IOException("Corrupted kd-tree index: " + path);
+            }
+            buffer.position(HEADER_BYTES);
+            this.coordinates = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            this.size = (int) count;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // coordinates of the point with the given index in tree order
+    public double x(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        return coordinates.get(2 * index);
+    }
+
+    public double y(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        return coordinates.get(2 * index + 1);
+    }
+
+    public boolean contains(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        return contains(0, size, true, p.x(), p.y());
+    }
+
+    private boolean contains(int lo, int hi, boolean vertical, double x, double y) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double midX = coordinates.get(2 * mid);
+            double midY = coordinates.get(2 * mid + 1);
+            if (midX == x && midY == y) return true;
+            double key = vertical ? x : y;
+            double nodeKey = vertical ? midX : midY;
+            if (key == nodeKey) {
+                // equal coordinates may be on both sides
+                if (contains(lo, mid, !vertical, x, y)) return true;
+                lo = mid + 1;
+            } else if (key < nodeKey) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+            vertical = !vertical;
+        }
+        return false;
+    }
+
+    public Iterable<Point2D> range(RectHV rect) {
+        if (rect == null) throw new IllegalArgumentException();
+        List<Point2D> result = new ArrayList<>();
+        fillRange(0, size, true, rect.xmin(), rect.ymin(), rect.xmax(), rect.ymax(), result);
+        return result;
+    }
+
+    private void fillRange(int lo, int hi, boolean vertical, double xmin, double ymin, double xmax, double ymax,
+                           List<Point2D> pointsInRange) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double x = coordinates.get(2 * mid);
+        double y = coordinates.get(2 * mid + 1);
+        if (x >= xmin && x <= xmax && y >= ymin && y <= ymax) {
+            pointsInRange.add(new Point2D(x, y));
+        }
+        double val = vertical ? x : y;
+        if ((vertical ? xmin : ymin) <= val) {
+            fillRange(lo, mid, !vertical, xmin, ymin, xmax, ymax, pointsInRange);
+        }
+        if ((vertical ? xmax : ymax) >= val) {
+            fillRange(mid + 1, hi, !vertical, xmin, ymin, xmax, ymax, pointsInRange);
+        }
+    }
+
+    public Point2D nearest(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        int index = nearestIndex(p.x(), p.y());
+        return index < 0 ? null : new Point2D(coordinates.get(2 * index), coordinates.get(2 * index + 1));
+    }
+
+    // index in tree order of a point nearest to (x, y), -1 when the tree is empty
+    public int nearestIndex(double x, double y) {
+        return nearest(0, size, true, x, y, -1);
+    }
+
+    private int nearest(int lo, int hi, boolean vertical, double x, double y, int best) {
+        if (lo >= hi) return best;
+        int mid = (lo + hi) >>> 1;
+        double dx = x - coordinates.get(2 * mid);
+        double dy = y - coordinates.get(2 * mid + 1);
+        if (best < 0 || dx * dx + dy * dy < distanceSquared(best, x, y)) {
+            best = mid;
+        }
+        double axisDistance = vertical ? dx : dy;
+        if (axisDistance < 0) {
+            best = nearest(lo, mid, !vertical, x, y, best);
+            if (axisDistance * axisDistance < distanceSquared(best, x, y)) {
+                best = nearest(mid + 1, hi, !vertical, x, y, best);
+            }
+        } else {
+            best = nearest(mid + 1, hi, !vertical, x, y, best);
+            if (axisDistance * axisDistance < distanceSquared(best, x, y)) {
+                best = nearest(lo, mid, !vertical, x, y, best);
+            }
+        }
+        return best;
+    }
+
+    private double distanceSquared(int index, double x, double y) {
+        double dx = x - coordinates.get(2 * index);
+        double dy = y - coordinates.get(2 * index + 1);
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,82 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// building a FlatKdTree against opening a saved one with MappedKdTree: time to a queryable tree,
+// heap taken by it and nearest() time on both, the answers of both trees are compared
+public class MappedKdTreeBenchmark {
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int queriesCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        Random random = new Random(42);
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = new Point2D(random.nextDouble(), random.nextDouble());
+        }
+        Path file = Files.createTempFile("kd", ".index");
+        try {
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            FlatKdTree flat = new FlatKdTree(points);
+            long buildNanos = System.nanoTime() - start;
+            long flatHeap = usedHeap() - heapBefore;
+
+            start = System.nanoTime();
+            flat.save(file);
+            long saveNanos = System.nanoTime() - start;
+
+            heapBefore = usedHeap();
+            start = System.nanoTime();
+            MappedKdTree mapped = new MappedKdTree(file);
+            long openNanos = System.nanoTime() - start;
+            long mappedHeap = usedHeap() - heapBefore;
+
+            double[] xs = new double[queriesCount];
+            double[] ys = new double[queriesCount];
+            for (int i = 0; i < queriesCount; i++) {
+                xs[i] = random.nextDouble();
+                ys[i] = random.nextDouble();
+            }
+            long flatNanos = 0;
+            long mappedNanos = 0;
+            for (int round = 0; round < 3; round++) {
+                start = System.nanoTime();
+                int[] expected = new int[queriesCount];
+                for (int i = 0; i < queriesCount; i++) {
+                    expected[i] = flat.nearestIndex(xs[i], ys[i]);
+                }
+                flatNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < queriesCount; i++) {
+                    if (mapped.nearestIndex(xs[i], ys[i]) != expected[i]) {
+                        throw new IllegalStateException("Different nearest point for query " + i);
+                    }
+                }
+                mappedNanos = System.nanoTime() - start;
+            }
+
+            System.out.printf("n=%d, index file %.1f MB%n", n, Files.size(file) / 1e6);
+            System.out.printf("  build %8.1f ms, heap %8.1f MB%n", buildNanos / 1e6, flatHeap / 1e6);
+            System.out.printf("  save  %8.1f ms%n", saveNanos / 1e6);
+            System.out.printf("  open  %8.3f ms, heap %8.3f MB%n", openNanos / 1e6, mappedHeap / 1e6);
+            System.out.printf("  %d nearest(): heap arrays %8.1f ms, mapped file %8.1f ms%n",
+                    queriesCount, flatNanos / 1e6, mappedNanos / 1e6);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+import edu.princeton.cs.algs4.StdDraw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// PointSET API over a uniform grid of square cells covering fixed bounds; every cell keeps its
+// points as (x, y) pairs in a primitive array, allocated with the first point. range only scans
+// cells overlapping the rectangle and nearest scans rings of cells around the query until the
+// ring is farther than the best point found. works best when cells hold a few points each
+public class PointGrid {
+    private static final double DEFAULT_CELL_SIZE = 1.0 / 128;
+    private static final int MAX_CELLS = 1 << 26;
+
+    private final double xmin, ymin, xmax, ymax;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final double[][] cells;
+    private final int[] counts;
+    private int size;
+
+    // the unit square
+    public PointGrid() {
+        this(new RectHV(0, 0, 1, 1), DEFAULT_CELL_SIZE);
+    }
+
+    // points must lie inside the bounds
+    public PointGrid(RectHV bounds, double cellSize) {
+        if (bounds == null) throw new IllegalArgumentException();
+        if (!(cellSize > 0) || Double.isInfinite(cellSize)) throw new IllegalArgumentException("Cell size must be positive.");
+        this.xmin = bounds.xmin();
+        this.ymin = bounds.ymin();
+        this.xmax = bounds.xmax();
+        this.ymax = bounds.ymax();
+        this.cellSize = cellSize;
+        long columns = Math.max(1, (long) Math.ceil((xmax - xmin) / cellSize));
+        long rows = Math.max(1, (long) Math.ceil((ymax - ymin) / cellSize));
+        if (columns * rows > MAX_CELLS) throw new IllegalArgumentException("Too many cells: " + columns * rows);
+        this.columns = (int) columns;
+        this.rows = (int) rows;
+        this.cells = new double[this.columns * this.rows][];
+        this.counts = new int[this.columns * this.rows];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        double x = p.x();
+        double y = p.y();
+        if (!(x >= xmin && x <= xmax && y >= ymin && y <= ymax)) {
+            throw new IllegalArgumentException(p + " is outside of the grid bounds.");
+        }
+        int cell = row(y) * columns + column(x);
+        if (indexIn(cell, x, y) >= 0) return;
+        double[] coordinates = cells[cell];
+        int count = counts[cell];
+        if (coordinates == null) {
+            coordinates = new double[4];
+            cells[cell] = coordinates;
+        } else if (2 * count == coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            cells[cell] = coordinates;
+        }
+        coordinates[2 * count] = x;
+        coordinates[2 * count + 1] = y;
+        counts[cell]++;
+        size++;
+    }
+
+    public boolean contains(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        double x = p.x();
+        double y = p.y();
+        if (!(x >= xmin && x <= xmax && y >= ymin && y <= ymax)) return false;
+        return indexIn(row(y) * columns + column(x), x, y) >= 0;
+    }
+
+    // position of the point in the cell, -1 when it is not there
+    private int indexIn(int cell, double x, double y) {
+        double[] coordinates = cells[cell];
+        for (int i = 0; i < counts[cell]; i++) {
+            if (coordinates[2 * i] == x && coordinates[2 * i + 1] == y) return i;
+        }
+        return -1;
+    }
+
+    // cells of coordinates outside of the bounds are clamped to the border ones
+    private int column(double x) {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - xmin) / cellSize)));
+    }
+
+    private int row(double y) {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - ymin) / cellSize)));
+    }
+
+    public void draw() {
+        for (int cell = 0; cell < cells.length; cell++) {
+            for (int i = 0; i < counts[cell]; i++) {
+                StdDraw.point(cells[cell][2 * i], cells[cell][2 * i + 1]);
+            }
+        }
+    }
+
+    public Iterable<Point2D> range(RectHV rect) {
+        if (rect == null) throw new IllegalArgumentException();
+        List<Point2D> result = new ArrayList<>();
+        if (rect.xmax() < xmin || rect.xmin() > xmax || rect.ymax() < ymin || rect.ymin() > ymax) return result;
+        int fromColumn = column(rect.xmin());
+        int toColumn = column(rect.xmax());
+        for (int row = row(rect.ymin()), toRow = row(rect.ymax()); row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                int cell = row * columns + column;
+                double[] coordinates = cells[cell];
+                for (int i = 0; i < counts[cell]; i++) {
+                    double x = coordinates[2 * i];
+                    double y = coordinates[2 * i + 1];
+                    if (x >= rect.xmin() && x <= rect.xmax() && y >= rect.ymin() && y <= rect.ymax()) {
+                        result.add(new Point2D(x, y));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public Point2D nearest(Point2D p) {
+        if (p == null) throw new IllegalArgumentException();
+        if (size == 0) return null;
+        double x = p.x();
+        double y = p.y();
+        int centerColumn = column(x);
+        int centerRow = row(y);
+        int maxRing = Math.max(Math.max(centerColumn, columns - 1 - centerColumn),
+                Math.max(centerRow, rows - 1 - centerRow));
+        double bestDistance = Double.POSITIVE_INFINITY;
+        int bestCell = -1;
+        int bestIndex = -1;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int fromColumn = centerColumn - ring;
+            int toColumn = centerColumn + ring;
+            int fromRow = centerRow - ring;
+            int toRow = centerRow + ring;
+            for (int row = Math.max(0, fromRow); row <= Math.min(rows - 1, toRow); row++) {
+                boolean edgeRow = row == fromRow || row == toRow;
+                // inner rows only have the two cells at the ends of the ring
+                int step = edgeRow ? 1 : toColumn - fromColumn;
+                for (int column = fromColumn; column <= toColumn; column += Math.max(step, 1)) {
+                    if (column < 0 || column >= columns) continue;
+                    int cell = row * columns + column;
+                    double[] coordinates = cells[cell];
+                    for (int i = 0; i < counts[cell]; i++) {
+                        double dx = x - coordinates[2 * i];
+                        double dy = y - coordinates[2 * i + 1];
+                        double distance = dx * dx + dy * dy;
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            bestCell = cell;
+                            bestIndex = i;
+                        }
+                    }
+                }
+            }
+            if (bestDistance <= outsideDistanceSquared(x, y, fromColumn, fromRow, toColumn, toRow)) break;
+        }
+        return new Point2D(cells[bestCell][2 * bestIndex], cells[bestCell][2 * bestIndex + 1]);
+    }
+
+    // lower bound of the squared distance from (x, y) to the points outside of the block of cells;
+    // sides of the block at the border of the grid have nothing beyond them
+    private double outsideDistanceSquared(double x, double y, int fromColumn, int fromRow, int toColumn, int toRow) {
+        double left = fromColumn <= 0 ? Double.POSITIVE_INFINITY : x - (xmin + fromColumn * cellSize);
+        double right = toColumn >= columns - 1 ? Double.POSITIVE_INFINITY : xmin + (toColumn + 1) * cellSize - x;
+        double bottom = fromRow <= 0 ? Double.POSITIVE_INFINITY : y - (ymin + fromRow * cellSize);
+        double top = toRow >= rows - 1 ? Double.POSITIVE_INFINITY : ymin + (toRow + 1) * cellSize - y;
+        double distance = Math.min(Math.min(left, right), Math.min(bottom, top));
+        // a query outside of the bounds sits in a clamped cell, nothing can be said then
+        if (distance < 0) return 0;
+        return distance * distance;
+    }
+}
@@ -0,0 +1,122 @@
+package kd;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+
+import java.util.Random;
+
+// insert, range() and nearest() of PointSET, KdTree and PointGrid on uniform, clustered and
+// diagonal points in the unit square; the answers of the three are compared
+public class PointGridBenchmark {
+
+    private static Point2D[] uniform(int n, Random random) {
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = new Point2D(random.nextDouble(), random.nextDouble());
+        }
+        return points;
+    }
+
+    // a few tight gaussian clusters, most cells of a grid stay empty
+    private static Point2D[] clustered(int n, Random random) {
+        double[] centers = new double[20];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = 0.1 + 0.8 * random.nextDouble();
+        }
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; ) {
+            int cluster = random.nextInt(centers.length / 2);
+            double x = centers[2 * cluster] + random.nextGaussian() * 0.01;
+            double y = centers[2 * cluster + 1] + random.nextGaussian() * 0.01;
+            if (x >= 0 && x <= 1 && y >= 0 && y <= 1) {
+                points[i++] = new Point2D(x, y);
+            }
+        }
+        return points;
+    }
+
+    private static Point2D[] diagonal(int n, Random random) {
+        Point2D[] points = new Point2D[n];
+        for (int i = 0; i < n; i++) {
+            double t = random.nextDouble();
+            points[i] = new Point2D(t, Math.min(1, Math.max(0, t + random.nextGaussian() * 0.001)));
+        }
+        return points;
+    }
+
+    private static void measure(String name, Point2D[] points, Point2D[] queries, RectHV[] rects) {
+        PointSET set = new PointSET();
+        KdTree tree = new KdTree();
+        PointGrid grid = new PointGrid(new RectHV(0, 0, 1, 1), 1 / Math.sqrt(points.length / 2.0));
+
+        long start = System.nanoTime();
+        for (Point2D point : points) set.insert(point);
+        long setInsert = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (Point2D point : points) tree.insert(point);
+        long treeInsert = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (Point2D point : points) grid.insert(point);
+        long gridInsert = System.nanoTime() - start;
+
+        long setRange = 0, treeRange = 0, gridRange = 0;
+        for (RectHV rect : rects) {
+            start = System.nanoTime();
+            int expected = count(set.range(rect));
+            setRange += System.nanoTime() - start;
+            start = System.nanoTime();
+            int treeCount = count(tree.range(rect));
+            treeRange += System.nanoTime() - start;
+            start = System.nanoTime();
+            int gridCount = count(grid.range(rect));
+            gridRange += System.nanoTime() - start;
+            if (treeCount != expected || gridCount != expected) throw new IllegalStateException("range " + rect);
+        }
+
+        long setNearest = 0, treeNearest = 0, gridNearest = 0;
+        for (Point2D query : queries) {
+            start = System.nanoTime();
+            double expected = set.nearest(query).distanceSquaredTo(query);
+            setNearest += System.nanoTime() - start;
+            start = System.nanoTime();
+            double treeDistance = tree.nearest(query).distanceSquaredTo(query);
+            treeNearest += System.nanoTime() - start;
+            start = System.nanoTime();
+            double gridDistance = grid.nearest(query).distanceSquaredTo(query);
+            gridNearest += System.nanoTime() - start;
+            if (treeDistance != expected || gridDistance != expected) throw new IllegalStateException("nearest " + query);
+        }
+
+        System.out.printf("%-9s n=%d%n", name, points.length);
+        System.out.printf("  insert:            PointSET %8.1f ms, KdTree %8.1f ms, PointGrid %8.1f ms%n",
+                setInsert / 1e6, treeInsert / 1e6, gridInsert / 1e6);
+        System.out.printf("  %5d range():     PointSET %8.1f ms, KdTree %8.1f ms, PointGrid %8.1f ms%n",
+                rects.length, setRange / 1e6, treeRange / 1e6, gridRange / 1e6);
+        System.out.printf("  %5d nearest():   PointSET %8.1f ms, KdTree %8.1f ms, PointGrid %8.1f ms%n",
+                queries.length, setNearest / 1e6, treeNearest / 1e6, gridNearest / 1e6);
+    }
+
+    private static int count(Iterable<Point2D> points) {
+        int count = 0;
+        for (Point2D ignored : points) count++;
+        return count;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queriesCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        Random random = new Random(42);
+        Point2D[] queries = uniform(queriesCount, random);
+        RectHV[] rects = new RectHV[queriesCount];
+        for (int i = 0; i < queriesCount; i++) {
+            double x = random.nextDouble() * 0.98;
+            double y = random.nextDouble() * 0.98;
+            rects[i] = new RectHV(x, y, x + 0.02, y + 0.02);
+        }
+
+        measure("warmup", uniform(n, random), queries, rects);
+        measure("uniform", uniform(n, random), queries, rects);
+        measure("clustered", clustered(n, random), queries, rects);
+        measure("diagonal", diagonal(n, random), queries, rects);
+    }
+}
@@ -4,6 +4,7 @@ import edu.princeton.cs.algs4.Point2D;
 import edu.princeton.cs.algs4.RectHV;
 import edu.princeton.cs.algs4.StdDraw;
 
+import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
@@ -58,4 +59,21 @@ public class PointSET {
         }
         return nearestPoint;
     }
+
+    public Iterable<Point2D> kNearest(Point2D p, int k) {
+        if (p == null) throw new IllegalArgumentException();
+        if (k < 0) throw new IllegalArgumentException();
+        return points.stream()
+                .sorted(Comparator.comparingDouble(p::distanceSquaredTo))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    public Iterable<Point2D> withinRadius(Point2D p, double r) {
+        if (p == null) throw new IllegalArgumentException();
+        if (!(r >= 0)) throw new IllegalArgumentException();
+        return points.stream()
+                .filter(point -> p.distanceSquaredTo(point) <= r * r)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,70 @@
+package percolation;
+
+// n x n x n simple cubic lattice with 6 neighbours, site = (layer * n + row) * n + col;
+// top and bottom are the first and the last layers, a periodic lattice wraps rows and columns around
+public final class CubicLattice implements Lattice {
+    private final int n;
+    private final int layerSize;
+    private final boolean periodic;
+
+    public CubicLattice(int n, boolean periodic) {
+        if (n <= 0 || (long) n * n * n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lattice size is outside of valid range.");
+        }
+        // below 3 the wrapped neighbour is the site itself or its ordinary neighbour once more
+        if (periodic && n < 3) {
+            throw new IllegalArgumentException("Periodic lattice size must be at least 3.");
+        }
+        this.n = n;
+        this.layerSize = n * n;
+        this.periodic = periodic;
+    }
+
+    @Override
+    public int sitesCount() {
+        return layerSize * n;
+    }
+
+    @Override
+    public int degree() {
+        return 6;
+    }
+
+    @Override
+    public int neighbour(int site, int direction) {
+        int layer = site / layerSize;
+        int inLayer = site - layer * layerSize;
+        int row = inLayer / n;
+        int col = inLayer - row * n;
+        switch (direction) {
+            case 0:
+                return layer == 0 ? -1 : site - layerSize;
+            case 1:
+                if (row != 0) return site - n;
+                return periodic ? site + layerSize - n : -1;
+            case 2:
+                if (col != 0) return site - 1;
+                return periodic ? site + n - 1 : -1;
+            case 3:
+                return layer == n - 1 ? -1 : site + layerSize;
+            case 4:
+                if (row != n - 1) return site + n;
+                return periodic ? site - layerSize + n : -1;
+            case 5:
+                if (col != n - 1) return site + 1;
+                return periodic ? site - n + 1 : -1;
+            default:
+                throw new IllegalArgumentException("Direction is outside of valid range.");
+        }
+    }
+
+    @Override
+    public boolean isTop(int site) {
+        return site < layerSize;
+    }
+
+    @Override
+    public boolean isBottom(int site) {
+        return site >= layerSize * (n - 1);
+    }
+}
@@ -0,0 +1,19 @@
+package percolation;
+
+// neighbour topology of a percolation lattice; sites are numbered 0..sitesCount()-1,
+// directions d and d + degree() / 2 are opposite to each other, so every bond is
+// addressed exactly once by a site and one of the first degree() / 2 directions
+public interface Lattice {
+
+    int sitesCount();
+
+    // maximal number of neighbours of a site, always even
+    int degree();
+
+    // neighbour of the site in the given direction, or -1 when there is none
+    int neighbour(int site, int direction);
+
+    boolean isTop(int site);
+
+    boolean isBottom(int site);
+}
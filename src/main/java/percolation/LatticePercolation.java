@@ -0,0 +1,230 @@
+package percolation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// site or bond percolation over any Lattice, the union-find hot path is the same as in Percolation;
+// elements are sites for the SITE model, for the BOND model element = site * (degree / 2) + direction.
+// bond numbers whose direction leads out of the lattice are not elements: they stay closed, open()
+// rejects them and elementsCount() does not count them
+public class LatticePercolation {
+
+    public enum Model {
+        SITE, BOND
+    }
+
+    private final Lattice lattice;
+    private final Model model;
+    private final SiteUnionFind unionFind;
+    private final int sitesCount;
+    private final int degree;
+    private final int bondDirections;
+    // element numbers are below this, some of them are not elements in the BOND model
+    private final int elementNumbers;
+    private final int elementsCount;
+
+    // one bit per element, bit is set when the element is opened
+    private final long[] openedMask;
+    private int openedElements;
+
+    public LatticePercolation(Lattice lattice, Model model) {
+        if (lattice == null || model == null) throw new IllegalArgumentException();
+        this.lattice = lattice;
+        this.model = model;
+        this.sitesCount = lattice.sitesCount();
+        this.degree = lattice.degree();
+        this.bondDirections = degree / 2;
+        long numbers = model == Model.SITE ? sitesCount : (long) sitesCount * bondDirections;
+        if (numbers > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lattice has too many bonds.");
+        }
+        this.elementNumbers = (int) numbers;
+        this.elementsCount = model == Model.SITE ? sitesCount : bondsCount(lattice, sitesCount, bondDirections);
+        this.unionFind = new SiteUnionFind(sitesCount);
+        this.openedMask = new long[(elementNumbers + 63) >>> 6];
+        initBoundaryStatuses();
+    }
+
+    private static int bondsCount(Lattice lattice, int sitesCount, int bondDirections) {
+        int count = 0;
+        for (int site = 0; site < sitesCount; site++) {
+            for (int direction = 0; direction < bondDirections; direction++) {
+                if (lattice.neighbour(site, direction) >= 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // closes all elements again, reusing the backing arrays
+    public void reset() {
+        unionFind.reset();
+        Arrays.fill(openedMask, 0L);
+        openedElements = 0;
+        initBoundaryStatuses();
+    }
+
+    // in the bond model every site is present from the start, so boundary sites know their status up front
+    private void initBoundaryStatuses() {
+        if (model != Model.BOND)
+            return;
+        for (int site = 0; site < sitesCount; site++) {
+            int status = boundaryStatus(site);
+            if (status != 0) {
+                unionFind.setStatus(site, status);
+            }
+        }
+    }
+
+    private int boundaryStatus(int site) {
+        int status = 0;
+        if (lattice.isTop(site)) {
+            status |= SiteUnionFind.CONNECTED_TO_TOP;
+        }
+        if (lattice.isBottom(site)) {
+            status |= SiteUnionFind.CONNECTED_TO_BOTTOM;
+        }
+        return status;
+    }
+
+    // sites, or bonds with a site at both ends
+    public int elementsCount() {
+        return elementsCount;
+    }
+
+    // element numbers are 0..elementNumbers()-1, see isElement()
+    public int elementNumbers() {
+        return elementNumbers;
+    }
+
+    public boolean isElement(int element) {
+        validateElement(element);
+        if (model == Model.SITE)
+            return true;
+        int site = element / bondDirections;
+        return lattice.neighbour(site, element - site * bondDirections) >= 0;
+    }
+
+    public void open(int element) {
+        validateElement(element);
+        if (model == Model.SITE) {
+            openSite(element);
+        } else {
+            openBond(element);
+        }
+    }
+
+    private void openSite(int site) {
+        if (!markOpened(site))
+            return;
+        unionFind.setStatus(site, boundaryStatus(site));
+        for (int direction = 0; direction < degree; direction++) {
+            int neighbour = lattice.neighbour(site, direction);
+            if (neighbour >= 0 && isOpenedElement(neighbour)) {
+                unionFind.union(site, neighbour);
+            }
+        }
+    }
+
+    private void openBond(int bond) {
+        int site = bond / bondDirections;
+        int neighbour = lattice.neighbour(site, bond - site * bondDirections);
+        if (neighbour < 0)
+            throw new IllegalArgumentException("Element " + bond + " leads out of the lattice.");
+        if (markOpened(bond)) {
+            unionFind.union(site, neighbour);
+        }
+    }
+
+    // false when the element was already open
+    private boolean markOpened(int element) {
+        if (isOpenedElement(element))
+            return false;
+        openedMask[element >>> 6] |= 1L << element;
+        openedElements++;
+        return true;
+    }
+
+    public boolean isOpen(int element) {
+        validateElement(element);
+        return isOpenedElement(element);
+    }
+
+    private boolean isOpenedElement(int element) {
+        return (openedMask[element >>> 6] & (1L << element)) != 0;
+    }
+
+    public boolean isFull(int site) {
+        if (site < 0 || site >= sitesCount)
+            throw new IllegalArgumentException("Site is outside of valid range.");
+        if (model == Model.SITE && !isOpenedElement(site))
+            return false;
+        return (unionFind.status(site) & SiteUnionFind.CONNECTED_TO_TOP) != 0;
+    }
+
+    public int numberOfOpenElements() {
+        return openedElements;
+    }
+
+    public boolean percolates() {
+        return unionFind.percolates();
+    }
+
+    private void validateElement(int element) {
+        if (element < 0 || element >= elementNumbers)
+            throw new IllegalArgumentException("Element is outside of valid range.");
+    }
+
+    public static void main(String[] args) {
+        String latticeName = args[0];
+        int n = Integer.parseInt(args[1]);
+        Model model = Model.valueOf(args[2]);
+        int trials = Integer.parseInt(args[3]);
+        boolean periodic = args.length > 4 && Boolean.parseBoolean(args[4]);
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+
+        Lattice lattice;
+        if ("square".equals(latticeName)) {
+            lattice = new SquareLattice(n, periodic);
+        } else if ("triangular".equals(latticeName)) {
+            lattice = new TriangularLattice(n, periodic);
+        } else if ("cubic".equals(latticeName)) {
+            lattice = new CubicLattice(n, periodic);
+        } else {
+            throw new IllegalArgumentException("Unknown lattice: " + latticeName);
+        }
+
+        LatticePercolation percolation = new LatticePercolation(lattice, model);
+        if (percolation.elementsCount() == 0) {
+            throw new IllegalArgumentException("The " + latticeName + " lattice of size " + n + " has no bonds.");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] elements = new int[percolation.elementsCount()];
+        for (int element = 0, i = 0; element < percolation.elementNumbers(); element++) {
+            if (percolation.isElement(element)) {
+                elements[i++] = element;
+            }
+        }
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int trial = 0; trial < trials; trial++) {
+            if (trial != 0) {
+                percolation.reset();
+            }
+            // incremental Fisher-Yates, as in TrialMode.PERMUTATION
+            int opened = 0;
+            do {
+                int j = opened + random.nextInt(elements.length - opened);
+                int element = elements[j];
+                elements[j] = elements[opened];
+                elements[opened++] = element;
+                percolation.open(element);
+            } while (!percolation.percolates());
+            sum += (double) opened / elements.length;
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("mean threshold\t= " + sum / trials);
+        System.out.println("elapsed\t\t\t= " + elapsedMillis + " ms");
+    }
+}
@@ -0,0 +1,62 @@
+package percolation;
+
+// bond counts of small lattices against the closed forms: directions leading out of the lattice
+// must not be elements and cannot be opened, opening every bond must percolate; periodic lattices
+// too small to wrap without doubled bonds are rejected
+public class LatticePercolationValidation {
+
+    private static void check(String name, Lattice lattice, int expectedBonds) {
+        LatticePercolation percolation = new LatticePercolation(lattice, LatticePercolation.Model.BOND);
+        if (percolation.elementsCount() != expectedBonds) {
+            throw new IllegalStateException(name + ": " + percolation.elementsCount() + " bonds, expected " + expectedBonds);
+        }
+        int bonds = 0;
+        for (int element = 0; element < percolation.elementNumbers(); element++) {
+            if (percolation.isElement(element)) {
+                percolation.open(element);
+                bonds++;
+            } else {
+                try {
+                    percolation.open(element);
+                    throw new IllegalStateException(name + ": element " + element + " out of the lattice was opened.");
+                } catch (IllegalArgumentException expected) {
+                    // directions out of the lattice are not bonds
+                }
+            }
+        }
+        if (bonds != expectedBonds) {
+            throw new IllegalStateException(name + ": " + bonds + " elements are bonds, expected " + expectedBonds);
+        }
+        if (percolation.numberOfOpenElements() != expectedBonds || !percolation.percolates()) {
+            throw new IllegalStateException(name + ": fully opened lattice does not percolate.");
+        }
+        for (int site = 0; site < lattice.sitesCount(); site++) {
+            if (!percolation.isFull(site)) {
+                throw new IllegalStateException(name + ": site " + site + " is not full.");
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        for (int n = 1; n <= 6; n++) {
+            check("square " + n, new SquareLattice(n, false), 2 * n * (n - 1));
+            check("triangular " + n, new TriangularLattice(n, false), 2 * n * (n - 1) + (n - 1) * (n - 1));
+            check("cubic " + n, new CubicLattice(n, false), 3 * n * n * (n - 1));
+        }
+        // wrapped columns add one bond per row, wrapped diagonals one per pair of rows
+        for (int n = 3; n <= 6; n++) {
+            check("periodic square " + n, new SquareLattice(n, true), n * (n - 1) + n * n);
+            check("periodic triangular " + n, new TriangularLattice(n, true), 2 * n * (n - 1) + n * n);
+            check("periodic cubic " + n, new CubicLattice(n, true), n * n * (n - 1) + 2 * n * n * n);
+        }
+        for (int n = 1; n < 3; n++) {
+            try {
+                new SquareLattice(n, true);
+                throw new IllegalStateException("periodic square " + n + " was accepted.");
+            } catch (IllegalArgumentException expected) {
+                // the wrapped neighbour would double an ordinary bond or be the site itself
+            }
+        }
+        System.out.println("bond counts ok");
+    }
+}
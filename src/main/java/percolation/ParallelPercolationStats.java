@@ -0,0 +1,176 @@
+package percolation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelPercolationStats {
+
+    public interface ProgressListener {
+        void onProgress(RunningStats stats);
+    }
+
+    private final int trials;
+    private final int workers;
+    private final double mean;
+    private final double stddev;
+    private final double confidenceLo;
+    private final double confidenceHi;
+
+    public ParallelPercolationStats(int n, int trials) {
+        this(n, trials, Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    public ParallelPercolationStats(int n, int trials, int workers, long seed) {
+        this(n, trials, workers, seed, TrialMode.RANDOM_SITES);
+    }
+
+    public ParallelPercolationStats(int n, int trials, int workers, long seed, TrialMode mode) {
+        this(n, trials, workers, seed, mode, 0, 0, null);
+    }
+
+    // the same seed, workers count, mode and reportEvery always produce the same results;
+    // trials are run in rounds of reportEvery trials (one round when reportEvery <= 0), after every
+    // round the listener gets the running stats and the run stops early once the 95% confidence
+    // half-width drops below tolerance (never when tolerance <= 0)
+    public ParallelPercolationStats(int n, int trials, int workers, long seed, TrialMode mode,
+                                    int reportEvery, double tolerance, ProgressListener listener) {
+        if (n <= 0 || trials <= 0) {
+            throw new IllegalArgumentException("Grid's side size and 'trials' must be greater then 0.");
+        }
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Workers count must be greater then 0.");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("Trial mode cannot be null.");
+        }
+        workers = Math.min(workers, trials);
+        this.workers = workers;
+        int roundSize = reportEvery <= 0 ? trials : reportEvery;
+
+        // every worker gets its own stream, split up front so the streams do not depend on scheduling
+        SplittableRandom seedRandom = new SplittableRandom(seed);
+        Worker[] trialWorkers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            trialWorkers[i] = new Worker(n, mode, seedRandom.split());
+        }
+
+        RunningStats stats = new RunningStats();
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            while (stats.count() < trials) {
+                int round = (int) Math.min(roundSize, trials - stats.count());
+                runRound(pool, trialWorkers, round);
+                // merged in workers order, so the floating point result does not depend on scheduling
+                for (Worker worker : trialWorkers) {
+                    stats.merge(worker.roundStats);
+                }
+                if (listener != null) {
+                    listener.onProgress(stats);
+                }
+                if (tolerance > 0 && stats.count() > 1 && stats.confidenceHalfWidth() < tolerance) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        this.trials = (int) stats.count();
+        this.mean = stats.mean();
+        this.stddev = stats.stddev();
+        this.confidenceLo = stats.confidenceLo();
+        this.confidenceHi = stats.confidenceHi();
+    }
+
+    private static void runRound(ForkJoinPool pool, Worker[] workers, int round) {
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            int from = (int) ((long) round * i / workers.length);
+            int to = (int) ((long) round * (i + 1) / workers.length);
+            tasks[i] = ForkJoinTask.adapt(() -> worker.runTrials(to - from));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    // number of trials actually run, less than requested when the run stopped early
+    public int trials() {
+        return trials;
+    }
+
+    // number of workers actually used, never more than the requested trials
+    public int workers() {
+        return workers;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double stddev() {
+        return stddev;
+    }
+
+    public double confidenceLo() {
+        return confidenceLo;
+    }
+
+    public double confidenceHi() {
+        return confidenceHi;
+    }
+
+    private static class Worker {
+        private final int n;
+        private final TrialMode mode;
+        private final SplittableRandom random;
+        private final Percolation percolation;
+        private final int[] sites;
+        private RunningStats roundStats;
+
+        Worker(int n, TrialMode mode, SplittableRandom random) {
+            this.n = n;
+            this.mode = mode;
+            this.random = random;
+            this.percolation = new Percolation(n);
+            this.sites = mode == TrialMode.PERMUTATION ? TrialMode.initialSites(n) : null;
+        }
+
+        void runTrials(int count) {
+            roundStats = new RunningStats();
+            for (int i = 0; i < count; i++) {
+                percolation.reset();
+                int openedSites = mode.run(percolation, n, random, sites);
+                roundStats.add((double) openedSites / (n * n));
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        TrialMode mode = args.length > 4 ? TrialMode.valueOf(args[4]) : TrialMode.RANDOM_SITES;
+        int reportEvery = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        double tolerance = args.length > 6 ? Double.parseDouble(args[6]) : 0;
+        long start = System.nanoTime();
+        ParallelPercolationStats percolationStats = new ParallelPercolationStats(n, trials, workers, seed, mode,
+                reportEvery, tolerance,
+                stats -> System.out.println("trials = " + stats.count() + ", mean = " + stats.mean() +
+                        ", 95% confidence interval = [" + stats.confidenceLo() + ", " + stats.confidenceHi() + "]"));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("mean\t\t\t\t\t= " + percolationStats.mean());
+        System.out.println("stddev\t\t\t\t\t= " + percolationStats.stddev());
+        System.out.println("95% confidence interval = [" + percolationStats.confidenceLo() + ", " +
+                percolationStats.confidenceHi() + "]");
+        System.out.println("workers = " + percolationStats.workers() + ", mode = " + mode + ", trials = " + percolationStats.trials() +
+                ", elapsed = " + elapsedMillis + " ms");
+    }
+}
@@ -1,90 +1,103 @@
 package percolation;
 
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
+import java.util.Arrays;
 
 public class Percolation {
-    private WeightedQuickUnionUF quickUnionUF;
+    private static final int MAX_SIDE_SIZE = (int) Math.sqrt(SiteUnionFind.MAX_SITES);
+
+    private final SiteUnionFind unionFind;
 
-    // 0 - closed, 1 - opened
-    // array numeration starts from 1
-    private boolean[][] percolationMatrix;
+    // one bit per site, bit is set when the site is opened
+    private final long[] openedMask;
     private final int size;
-    private final int sideSize;
     private int openedSites;
 
-    private final int imaginaryTopSiteIndex;
-    private final int imaginaryBottomSiteIndex;
-
     public Percolation(int n) {
         if (n <= 0) {
             throw new IllegalArgumentException("Number cannot be <= 0.");
         }
-        // add 2 for "imaginary" sites at the "top" and "bottom"
+        if (n > MAX_SIDE_SIZE) {
+            throw new IllegalArgumentException("Number cannot be > " + MAX_SIDE_SIZE + ".");
+        }
         int arraySize = n * n;
-        this.sideSize = n;
-        this.quickUnionUF = new WeightedQuickUnionUF(arraySize + 2);
-        this.percolationMatrix = new boolean[n][n];
+        this.unionFind = new SiteUnionFind(arraySize);
+        this.openedMask = new long[(arraySize + 63) >>> 6];
         this.size = n;
-        this.imaginaryTopSiteIndex = arraySize;
-        this.imaginaryBottomSiteIndex = arraySize + 1;
+    }
+
+    // closes all sites again, reusing the backing arrays
+    public void reset() {
+        unionFind.reset();
+        Arrays.fill(openedMask, 0L);
+        openedSites = 0;
     }
 
     public void open(int row, int col) {
         if (isOpen(row, col))
             return;
 
-        int rowIndex = row - 1;
-        int colIndex = col - 1;
+        openSite((row - 1) * size + (col - 1));
+    }
+
+    // opens a site by its flat 0-based index, the index is not validated
+    void openSite(int selectedIndex) {
+        if (isOpenedSite(selectedIndex))
+            return;
 
-        percolationMatrix[rowIndex][colIndex] = true;
+        int rowIndex = selectedIndex / size;
+        int colIndex = selectedIndex - rowIndex * size;
 
-        int selectedIndex = rowIndex * sideSize + colIndex;
+        openedMask[selectedIndex >>> 6] |= 1L << selectedIndex;
 
+        int status = 0;
         if (rowIndex == 0) {
-            quickUnionUF.union(selectedIndex, imaginaryTopSiteIndex);
+            status |= SiteUnionFind.CONNECTED_TO_TOP;
         }
-        if (rowIndex == sideSize - 1) {
-            quickUnionUF.union(selectedIndex, imaginaryBottomSiteIndex);
+        if (rowIndex == size - 1) {
+            status |= SiteUnionFind.CONNECTED_TO_BOTTOM;
         }
+        unionFind.setStatus(selectedIndex, status);
 
         if (rowIndex != 0) {
-            unionOpenedSites(selectedIndex, rowIndex - 1, colIndex);
+            unionOpenedSites(selectedIndex, selectedIndex - size);
         }
-        if (rowIndex != sideSize - 1) {
-            unionOpenedSites(selectedIndex, rowIndex + 1, colIndex);
+        if (rowIndex != size - 1) {
+            unionOpenedSites(selectedIndex, selectedIndex + size);
         }
         if (colIndex != 0) {
-            unionOpenedSites(selectedIndex, rowIndex, colIndex - 1);
+            unionOpenedSites(selectedIndex, selectedIndex - 1);
         }
-        if (colIndex != sideSize - 1) {
-            unionOpenedSites(selectedIndex, rowIndex, colIndex + 1);
+        if (colIndex != size - 1) {
+            unionOpenedSites(selectedIndex, selectedIndex + 1);
         }
 
         openedSites++;
     }
 
-    private void unionOpenedSites(int selectedSiteIndex, int rowIndex, int colIndex) {
-        if (percolationMatrix[rowIndex][colIndex]) {
-            int openedSiteIndex = rowIndex * sideSize + colIndex;
-            quickUnionUF.union(selectedSiteIndex, openedSiteIndex);
+    private void unionOpenedSites(int selectedSiteIndex, int siteIndex) {
+        if (isOpenedSite(siteIndex)) {
+            unionFind.union(selectedSiteIndex, siteIndex);
         }
     }
 
+    private boolean isOpenedSite(int siteIndex) {
+        return (openedMask[siteIndex >>> 6] & (1L << siteIndex)) != 0;
+    }
+
     public boolean isOpen(int row, int col) {
         if (isOutsideOfRange(row) || isOutsideOfRange(col))
             throw new IllegalArgumentException("Row or col is outside of valid range.");
 
-        return percolationMatrix[row - 1][col - 1];
+        return isOpenedSite((row - 1) * size + (col - 1));
     }
 
     public boolean isFull(int row, int col) {
         if (!isOpen(row, col))
             return false;
 
-        int selectedSiteIndex = (row - 1) * sideSize + (col - 1);
+        int selectedSiteIndex = (row - 1) * size + (col - 1);
 
-        return quickUnionUF.find(selectedSiteIndex) == quickUnionUF.find(imaginaryTopSiteIndex);
+        return (unionFind.status(selectedSiteIndex) & SiteUnionFind.CONNECTED_TO_TOP) != 0;
     }
 
     public int numberOfOpenSites() {
@@ -92,7 +105,7 @@ public class Percolation {
     }
 
     public boolean percolates() {
-        return quickUnionUF.find(imaginaryBottomSiteIndex) == quickUnionUF.find(imaginaryTopSiteIndex);
+        return unionFind.percolates();
     }
 
     private boolean isOutsideOfRange(int n) {
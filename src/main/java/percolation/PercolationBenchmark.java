@@ -0,0 +1,55 @@
+package percolation;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+// compares allocation rate of a fresh Percolation per trial against one reset() instance
+public class PercolationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static int runTrial(Percolation percolation, int n, SplittableRandom random) {
+        do {
+            int row = random.nextInt(1, n + 1);
+            int col = random.nextInt(1, n + 1);
+            percolation.open(row, col);
+        } while (!percolation.percolates());
+        return percolation.numberOfOpenSites();
+    }
+
+    private static void measure(String name, int n, int trials, boolean reuse) {
+        SplittableRandom random = new SplittableRandom(42);
+        long checksum = 0;
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        Percolation percolation = reuse ? new Percolation(n) : null;
+        for (int i = 0; i < trials; i++) {
+            if (reuse) {
+                percolation.reset();
+            } else {
+                percolation = new Percolation(n);
+            }
+            checksum += runTrial(percolation, n, random);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-8s n=%d trials=%d: %8.1f ms, allocated %10.1f MB, %8.1f MB/s (checksum %d)%n",
+                name, n, trials, elapsedNanos / 1e6, bytes / 1e6, bytes / 1e6 / seconds, checksum);
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int trials = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        // warm up both paths before measuring
+        measure("warmup", n, Math.max(1, trials / 5), false);
+        measure("warmup", n, Math.max(1, trials / 5), true);
+        measure("new", n, trials, false);
+        measure("reset", n, trials, true);
+    }
+}
@@ -1,7 +1,6 @@
 package percolation;
 
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
 
 public class PercolationStats {
 
@@ -14,23 +13,23 @@ public class PercolationStats {
         if (n <= 0 || trials <= 0){
             throw new IllegalArgumentException("Grid's side size and 'trials' must be greater then 0.");
         }
-        double[] openedSitesToN = new double[trials];
+        RunningStats openedSitesToN = new RunningStats();
 
+        Percolation percolation = new Percolation(n);
         for (int i = 0; i < trials; i++) {
-            Percolation percolation = new Percolation(n);
+            percolation.reset();
             do {
                 int row = StdRandom.uniform(1, n + 1);
                 int col = StdRandom.uniform(1, n + 1);
                 percolation.open(row, col);
             } while (!percolation.percolates());
-            openedSitesToN[i] = (double) percolation.numberOfOpenSites() / (n * n);
+            openedSitesToN.add((double) percolation.numberOfOpenSites() / (n * n));
         }
 
-        this.mean = StdStats.mean(openedSitesToN);
-        this.stddev = StdStats.stddev(openedSitesToN);
-        double confidenceDelta = 1.96 * stddev / Math.sqrt(trials);
-        this.confidenceLo = mean - confidenceDelta;
-        this.confidenceHi = mean + confidenceDelta;
+        this.mean = openedSitesToN.mean();
+        this.stddev = openedSitesToN.stddev();
+        this.confidenceLo = openedSitesToN.confidenceLo();
+        this.confidenceHi = openedSitesToN.confidenceHi();
     }
 
     public double mean() {
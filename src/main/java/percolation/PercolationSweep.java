@@ -0,0 +1,105 @@
+package percolation;
+
+import java.util.SplittableRandom;
+
+// Newman-Ziff sweep: every trial opens sites in random order until the system percolates and records
+// that open count; the percolation probability for any p is then a binomial average over the counts
+public class PercolationSweep {
+
+    private final int sitesCount;
+    private final int trials;
+    private final int[] thresholds;
+    // percolatedTrials[k] - number of trials which percolate once k sites are opened
+    private final int[] percolatedTrials;
+
+    public PercolationSweep(int n, int trials, long seed) {
+        if (n <= 0 || trials <= 0) {
+            throw new IllegalArgumentException("Grid's side size and 'trials' must be greater then 0.");
+        }
+        this.sitesCount = n * n;
+        this.trials = trials;
+        this.thresholds = new int[trials];
+        this.percolatedTrials = new int[sitesCount + 1];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Percolation percolation = new Percolation(n);
+        int[] sites = TrialMode.initialSites(n);
+        for (int i = 0; i < trials; i++) {
+            percolation.reset();
+            int threshold = TrialMode.PERMUTATION.run(percolation, n, random, sites);
+            thresholds[i] = threshold;
+            percolatedTrials[threshold]++;
+        }
+        for (int k = 1; k <= sitesCount; k++) {
+            percolatedTrials[k] += percolatedTrials[k - 1];
+        }
+    }
+
+    public int trials() {
+        return trials;
+    }
+
+    // number of opened sites at which the given trial started to percolate
+    public int threshold(int trial) {
+        if (trial < 0 || trial >= trials)
+            throw new IllegalArgumentException("Trial is outside of valid range.");
+        return thresholds[trial];
+    }
+
+    // fraction of trials which percolate with exactly openedSites sites opened
+    public double fractionPercolated(int openedSites) {
+        if (openedSites < 0 || openedSites > sitesCount)
+            throw new IllegalArgumentException("Opened sites count is outside of valid range.");
+        return (double) percolatedTrials[openedSites] / trials;
+    }
+
+    // probability to percolate when every site is open independently with probability p
+    public double percolationProbability(double p) {
+        if (p < 0 || p > 1)
+            throw new IllegalArgumentException("Probability must be within [0, 1].");
+        if (p == 0)
+            return fractionPercolated(0);
+        if (p == 1)
+            return fractionPercolated(sitesCount);
+
+        // binomial weights are built outwards from the mode, relative to it, until they vanish
+        int mode = (int) Math.min(sitesCount, Math.max(0, Math.round(sitesCount * p)));
+        double odds = p / (1 - p);
+        double weightsSum = 1;
+        double weightedSum = fractionPercolated(mode);
+
+        double weight = 1;
+        for (int k = mode; k < sitesCount && weight > 1e-16; k++) {
+            weight *= odds * (sitesCount - k) / (k + 1);
+            weightsSum += weight;
+            weightedSum += weight * percolatedTrials[k + 1] / trials;
+        }
+        weight = 1;
+        for (int k = mode; k > 0 && weight > 1e-16; k--) {
+            weight *= k / (odds * (sitesCount - k + 1));
+            weightsSum += weight;
+            weightedSum += weight * percolatedTrials[k - 1] / trials;
+        }
+        return weightedSum / weightsSum;
+    }
+
+    public double[] percolationProbabilities(double[] ps) {
+        if (ps == null) throw new IllegalArgumentException();
+        double[] result = new double[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            result[i] = percolationProbability(ps[i]);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        PercolationSweep sweep = new PercolationSweep(n, trials, seed);
+        for (int i = 0; i <= 40; i++) {
+            double p = 0.5 + i * 0.005;
+            System.out.printf("p = %.3f\tP(p) = %.5f%n", p, sweep.percolationProbability(p));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package percolation;
+
+// streaming mean and variance (Welford), accumulators from different threads can be merged (Chan et al.)
+public class RunningStats {
+    private static final double CONFIDENCE_95 = 1.96;
+
+    private long count;
+    private double mean;
+    // sum of squared deviations from the current mean
+    private double squaredDeviations;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+    }
+
+    public void merge(RunningStats that) {
+        if (that == null) throw new IllegalArgumentException();
+        if (that.count == 0)
+            return;
+        if (count == 0) {
+            count = that.count;
+            mean = that.mean;
+            squaredDeviations = that.squaredDeviations;
+            return;
+        }
+        long mergedCount = count + that.count;
+        double delta = that.mean - mean;
+        mean += delta * that.count / mergedCount;
+        squaredDeviations += that.squaredDeviations + delta * delta * ((double) count * that.count / mergedCount);
+        count = mergedCount;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    // sample standard deviation, same as StdStats.stddev
+    public double stddev() {
+        return Math.sqrt(squaredDeviations / (count - 1));
+    }
+
+    public double confidenceHalfWidth() {
+        return CONFIDENCE_95 * stddev() / Math.sqrt(count);
+    }
+
+    public double confidenceLo() {
+        return mean() - confidenceHalfWidth();
+    }
+
+    public double confidenceHi() {
+        return mean() + confidenceHalfWidth();
+    }
+}
@@ -0,0 +1,87 @@
+package percolation;
+
+import java.util.Arrays;
+
+// union-find over lattice sites in a single int[], every root also knows whether its component
+// touches the top and the bottom boundary, so no virtual sites and no second union-find are needed
+final class SiteUnionFind {
+    static final int CONNECTED_TO_TOP = 1;
+    static final int CONNECTED_TO_BOTTOM = 2;
+    private static final int STATUS_BITS = 2;
+    private static final int STATUS_MASK = (1 << STATUS_BITS) - 1;
+    private static final int SINGLE_SITE_ROOT = -(1 << STATUS_BITS);
+    // size and status of the largest root have to fit into an int
+    static final int MAX_SITES = Integer.MAX_VALUE >> STATUS_BITS;
+
+    // a non-negative value is the parent index,
+    // a negative value marks a root and holds minus (component size << STATUS_BITS | status)
+    private final int[] parent;
+    private boolean percolates;
+
+    SiteUnionFind(int sitesCount) {
+        if (sitesCount <= 0 || sitesCount > MAX_SITES) {
+            throw new IllegalArgumentException("Sites count must be within [1, " + MAX_SITES + "].");
+        }
+        this.parent = new int[sitesCount];
+        Arrays.fill(parent, SINGLE_SITE_ROOT);
+    }
+
+    // every site becomes a single site root without status
+    void reset() {
+        Arrays.fill(parent, SINGLE_SITE_ROOT);
+        percolates = false;
+    }
+
+    // the site must still be a single site root
+    void setStatus(int site, int status) {
+        parent[site] = SINGLE_SITE_ROOT - status;
+        if (status == STATUS_MASK) {
+            percolates = true;
+        }
+    }
+
+    // path halving: every visited site is re-pointed to its grandparent
+    int find(int site) {
+        int[] parent = this.parent;
+        while (parent[site] >= 0) {
+            int grandParent = parent[parent[site]];
+            if (grandParent >= 0) {
+                parent[site] = grandParent;
+                site = grandParent;
+            } else {
+                site = parent[site];
+            }
+        }
+        return site;
+    }
+
+    // union by size, the new root gets the sum of sizes and both statuses
+    void union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot)
+            return;
+
+        int firstValue = -parent[firstRoot];
+        int secondValue = -parent[secondRoot];
+        if (firstValue < secondValue) {
+            int tmp = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = tmp;
+        }
+        int status = (firstValue | secondValue) & STATUS_MASK;
+        parent[firstRoot] = -(((firstValue & ~STATUS_MASK) + (secondValue & ~STATUS_MASK)) | status);
+        parent[secondRoot] = firstRoot;
+        if (status == STATUS_MASK) {
+            percolates = true;
+        }
+    }
+
+    int status(int site) {
+        return -parent[find(site)] & STATUS_MASK;
+    }
+
+    boolean percolates() {
+        return percolates;
+    }
+}
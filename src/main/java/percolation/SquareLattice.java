@@ -0,0 +1,60 @@
+package percolation;
+
+// n x n square lattice with 4 neighbours, top and bottom are the first and the last rows;
+// a periodic lattice wraps the columns around
+public final class SquareLattice implements Lattice {
+    private final int n;
+    private final boolean periodic;
+
+    public SquareLattice(int n, boolean periodic) {
+        if (n <= 0 || (long) n * n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lattice size is outside of valid range.");
+        }
+        // below 3 the wrapped neighbour is the site itself or its ordinary neighbour once more
+        if (periodic && n < 3) {
+            throw new IllegalArgumentException("Periodic lattice size must be at least 3.");
+        }
+        this.n = n;
+        this.periodic = periodic;
+    }
+
+    @Override
+    public int sitesCount() {
+        return n * n;
+    }
+
+    @Override
+    public int degree() {
+        return 4;
+    }
+
+    @Override
+    public int neighbour(int site, int direction) {
+        int row = site / n;
+        int col = site - row * n;
+        switch (direction) {
+            case 0:
+                return row == 0 ? -1 : site - n;
+            case 1:
+                if (col != 0) return site - 1;
+                return periodic ? site + n - 1 : -1;
+            case 2:
+                return row == n - 1 ? -1 : site + n;
+            case 3:
+                if (col != n - 1) return site + 1;
+                return periodic ? site - n + 1 : -1;
+            default:
+                throw new IllegalArgumentException("Direction is outside of valid range.");
+        }
+    }
+
+    @Override
+    public boolean isTop(int site) {
+        return site < n;
+    }
+
+    @Override
+    public boolean isBottom(int site) {
+        return site >= n * (n - 1);
+    }
+}
@@ -0,0 +1,47 @@
+package percolation;
+
+import java.util.SplittableRandom;
+
+// how a single trial picks the next site to open
+public enum TrialMode {
+    // uniformly random (row, col) draws, already opened sites are drawn again
+    RANDOM_SITES {
+        @Override
+        int run(Percolation percolation, int n, SplittableRandom random, int[] sites) {
+            do {
+                int row = random.nextInt(1, n + 1);
+                int col = random.nextInt(1, n + 1);
+                percolation.open(row, col);
+            } while (!percolation.percolates());
+            return percolation.numberOfOpenSites();
+        }
+    },
+    // sites in the order of a random permutation, shuffled incrementally so every draw opens a new site
+    PERMUTATION {
+        @Override
+        int run(Percolation percolation, int n, SplittableRandom random, int[] sites) {
+            int sitesCount = sites.length;
+            int opened = 0;
+            do {
+                int j = opened + random.nextInt(sitesCount - opened);
+                int site = sites[j];
+                sites[j] = sites[opened];
+                sites[opened++] = site;
+                percolation.openSite(site);
+            } while (!percolation.percolates());
+            return opened;
+        }
+    };
+
+    // runs one trial on a freshly reset percolation and returns the number of opened sites;
+    // sites must hold a permutation of all site indexes, any permutation left by a previous trial will do
+    abstract int run(Percolation percolation, int n, SplittableRandom random, int[] sites);
+
+    static int[] initialSites(int n) {
+        int[] sites = new int[n * n];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = i;
+        }
+        return sites;
+    }
+}
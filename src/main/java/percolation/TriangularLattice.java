@@ -0,0 +1,74 @@
+package percolation;
+
+// n x n triangular lattice drawn on a square grid: 4 square neighbours plus the
+// (row - 1, col + 1) and (row + 1, col - 1) diagonals, 6 neighbours in total;
+// a periodic lattice wraps the columns around
+public final class TriangularLattice implements Lattice {
+    private final int n;
+    private final boolean periodic;
+
+    public TriangularLattice(int n, boolean periodic) {
+        if (n <= 0 || (long) n * n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lattice size is outside of valid range.");
+        }
+        // below 3 the wrapped neighbour is the site itself or its ordinary neighbour once more
+        if (periodic && n < 3) {
+            throw new IllegalArgumentException("Periodic lattice size must be at least 3.");
+        }
+        this.n = n;
+        this.periodic = periodic;
+    }
+
+    @Override
+    public int sitesCount() {
+        return n * n;
+    }
+
+    @Override
+    public int degree() {
+        return 6;
+    }
+
+    @Override
+    public int neighbour(int site, int direction) {
+        int row = site / n;
+        int col = site - row * n;
+        switch (direction) {
+            case 0:
+                return siteAt(row - 1, col);
+            case 1:
+                return siteAt(row, col - 1);
+            case 2:
+                return siteAt(row - 1, col + 1);
+            case 3:
+                return siteAt(row + 1, col);
+            case 4:
+                return siteAt(row, col + 1);
+            case 5:
+                return siteAt(row + 1, col - 1);
+            default:
+                throw new IllegalArgumentException("Direction is outside of valid range.");
+        }
+    }
+
+    private int siteAt(int row, int col) {
+        if (row < 0 || row >= n)
+            return -1;
+        if (col < 0 || col >= n) {
+            if (!periodic)
+                return -1;
+            col = col < 0 ? col + n : col - n;
+        }
+        return row * n + col;
+    }
+
+    @Override
+    public boolean isTop(int site) {
+        return site < n;
+    }
+
+    @Override
+    public boolean isBottom(int site) {
+        return site >= n * (n - 1);
+    }
+}
@@ -0,0 +1,144 @@
+package queue;
+
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// thread-safe randomized queue split into independently locked stripes, each stripe is a small
+// randomized queue with its own random stream; enqueue goes to a random stripe, so stripes stay
+// about the same size, and dequeue/sample probe the stripes in a random order and take a random
+// slot of the first non-empty one, so every non-empty stripe is equally likely to be chosen.
+// every stream is split from the seed, threads get theirs on first use, so a single threaded
+// run is reproduced by the same seed
+public class ConcurrentRandomizedQueue<Item> {
+
+    private final Stripe<Item>[] stripes;
+    private final LongAdder size = new LongAdder();
+    // guarded by its own monitor
+    private final SplittableRandom seedRandom;
+    private final ThreadLocal<SplittableRandom> threadRandom = ThreadLocal.withInitial(this::splitSeed);
+
+    public ConcurrentRandomizedQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    public ConcurrentRandomizedQueue(int stripesCount, long seed) {
+        if (stripesCount <= 0) throw new IllegalArgumentException("Stripes count must be greater then 0.");
+        this.seedRandom = new SplittableRandom(seed);
+        this.stripes = (Stripe<Item>[]) new Stripe<?>[stripesCount];
+        for (int i = 0; i < stripesCount; i++) {
+            stripes[i] = new Stripe<>(seedRandom.split());
+        }
+    }
+
+    private SplittableRandom splitSeed() {
+        synchronized (seedRandom) {
+            return seedRandom.split();
+        }
+    }
+
+    // a snapshot which may already be stale when concurrent threads are working on the queue
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        return (int) size.sum();
+    }
+
+    public void enqueue(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+        Stripe<Item> stripe = stripes[threadRandom.get().nextInt(stripes.length)];
+        synchronized (stripe) {
+            stripe.enqueue(item);
+        }
+        size.increment();
+    }
+
+    // throws NoSuchElementException when every stripe was found empty
+    public Item dequeue() {
+        Item item = take(true);
+        if (item == null) throw new NoSuchElementException();
+        size.decrement();
+        return item;
+    }
+
+    public Item sample() {
+        Item item = take(false);
+        if (item == null) throw new NoSuchElementException();
+        return item;
+    }
+
+    // probes the stripes in a random order and takes an item of the first non-empty one, null when
+    // all of them were empty; the order is only drawn past the first stripe when that one is empty
+    private Item take(boolean remove) {
+        SplittableRandom random = threadRandom.get();
+        int first = random.nextInt(stripes.length);
+        Item item = take(stripes[first], remove);
+        if (item != null || stripes.length == 1) return item;
+        int[] order = new int[stripes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        order[first] = 0;
+        order[0] = first;
+        // Fisher-Yates over the rest, one stripe at a time
+        for (int i = 1; i < order.length; i++) {
+            int j = i + random.nextInt(order.length - i);
+            int index = order[j];
+            order[j] = order[i];
+            order[i] = index;
+            item = take(stripes[index], remove);
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    private static <Item> Item take(Stripe<Item> stripe, boolean remove) {
+        synchronized (stripe) {
+            return remove ? stripe.dequeue() : stripe.sample();
+        }
+    }
+
+    // guarded by its own monitor
+    private static class Stripe<Item> {
+        private final SplittableRandom random;
+        private Item[] items = (Item[]) new Object[8];
+        private int nextIndex;
+
+        Stripe(SplittableRandom random) {
+            this.random = random;
+        }
+
+        void enqueue(Item item) {
+            if (nextIndex == items.length) {
+                resize(items.length * 2);
+            }
+            items[nextIndex++] = item;
+        }
+
+        // null when the stripe is empty
+        Item dequeue() {
+            if (nextIndex == 0) return null;
+            int randomIndex = random.nextInt(nextIndex);
+            Item item = items[randomIndex];
+            items[randomIndex] = items[nextIndex - 1];
+            items[--nextIndex] = null;
+            if (items.length > 8 && nextIndex <= items.length / 4) {
+                resize(items.length / 2);
+            }
+            return item;
+        }
+
+        Item sample() {
+            if (nextIndex == 0) return null;
+            return items[random.nextInt(nextIndex)];
+        }
+
+        private void resize(int newSize) {
+            Item[] oldArr = items;
+            items = (Item[]) new Object[newSize];
+            System.arraycopy(oldArr, 0, items, 0, nextIndex);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package queue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// contention benchmark: 1..32 threads run a mix of enqueue, dequeue and sample against
+// ConcurrentRandomizedQueue and against a RandomizedQueue behind a single lock
+public class ConcurrentRandomizedQueueBenchmark {
+
+    // consumes results, so the JIT cannot drop the queue calls
+    private static final LongAdder CHECKSUM = new LongAdder();
+
+    private interface SharedQueue {
+        void enqueue(Integer item);
+
+        Integer dequeue();
+
+        Integer sample();
+    }
+
+    private static SharedQueue striped() {
+        ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<>();
+        return new SharedQueue() {
+            public void enqueue(Integer item) {
+                queue.enqueue(item);
+            }
+
+            public Integer dequeue() {
+                return queue.dequeue();
+            }
+
+            public Integer sample() {
+                return queue.sample();
+            }
+        };
+    }
+
+    private static SharedQueue globalLock() {
+        RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+        return new SharedQueue() {
+            public synchronized void enqueue(Integer item) {
+                queue.enqueue(item);
+            }
+
+            public synchronized Integer dequeue() {
+                return queue.dequeue();
+            }
+
+            public synchronized Integer sample() {
+                return queue.sample();
+            }
+        };
+    }
+
+    private static void run(String name, SharedQueue queue, int threadsCount, int opsPerThread)
+            throws InterruptedException {
+        // every thread keeps its own items in the queue, so dequeue and sample never find it empty
+        int prefill = 1024;
+        for (int i = 0; i < prefill * threadsCount; i++) {
+            queue.enqueue(i);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Integer item = 1;
+                long checksum = 0;
+                for (int i = 0; i < opsPerThread; i++) {
+                    int op = random.nextInt(3);
+                    if (op == 0) {
+                        queue.enqueue(item);
+                        checksum += queue.dequeue();
+                    } else {
+                        checksum += queue.sample();
+                    }
+                }
+                CHECKSUM.add(checksum);
+            });
+            threads[t].start();
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        System.out.printf("%-26s threads=%2d: %8.2f M ops/s%n", name, threadsCount,
+                (double) opsPerThread * threadsCount / (elapsedNanos / 1e3));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        run("warmup", striped(), 2, opsPerThread);
+        run("warmup", globalLock(), 2, opsPerThread);
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            run("ConcurrentRandomizedQueue", striped(), threads, opsPerThread);
+            run("synchronized RandomizedQueue", globalLock(), threads, opsPerThread);
+        }
+        System.out.println("checksum " + CHECKSUM.sum());
+    }
+}
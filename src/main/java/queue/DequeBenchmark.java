@@ -0,0 +1,92 @@
+package queue;
+
+import java.lang.management.ManagementFactory;
+
+// compares the linked Deque with RingDeque and IntDeque: time and allocated bytes
+// for filling a deque from both ends and draining it again
+public class DequeBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long linked(Integer[] values) {
+        Deque<Integer> deque = new Deque<>();
+        for (int i = 0; i < values.length; i++) {
+            if ((i & 1) == 0) deque.addFirst(values[i]);
+            else deque.addLast(values[i]);
+        }
+        long checksum = 0;
+        while (!deque.isEmpty()) {
+            checksum += deque.removeFirst();
+            if (!deque.isEmpty()) checksum -= deque.removeLast();
+        }
+        return checksum;
+    }
+
+    private static long ring(Integer[] values) {
+        RingDeque<Integer> deque = new RingDeque<>();
+        for (int i = 0; i < values.length; i++) {
+            if ((i & 1) == 0) deque.addFirst(values[i]);
+            else deque.addLast(values[i]);
+        }
+        long checksum = 0;
+        while (!deque.isEmpty()) {
+            checksum += deque.removeFirst();
+            if (!deque.isEmpty()) checksum -= deque.removeLast();
+        }
+        return checksum;
+    }
+
+    private static long primitive(Integer[] values) {
+        IntDeque deque = new IntDeque();
+        for (int i = 0; i < values.length; i++) {
+            if ((i & 1) == 0) deque.addFirst(i);
+            else deque.addLast(i);
+        }
+        long checksum = 0;
+        while (!deque.isEmpty()) {
+            checksum += deque.removeFirst();
+            if (!deque.isEmpty()) checksum -= deque.removeLast();
+        }
+        return checksum;
+    }
+
+    private interface Run {
+        long run(Integer[] values);
+    }
+
+    private static void measure(String name, Run run, Integer[] values, int iterations) {
+        long checksum = 0;
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += run.run(values);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        System.out.printf("%-10s %10.1f ms/op, %8.1f bytes/item (checksum %d)%n", name,
+                elapsedNanos / 1e6 / iterations, (double) bytes / iterations / values.length, checksum);
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        // boxed values are created up front, so the object deques are not charged for boxing
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        for (int warmup = 0; warmup < 3; warmup++) {
+            linked(values);
+            ring(values);
+            primitive(values);
+        }
+        measure("Deque", DequeBenchmark::linked, values, iterations);
+        measure("RingDeque", DequeBenchmark::ring, values, iterations);
+        measure("IntDeque", DequeBenchmark::primitive, values, iterations);
+    }
+}
@@ -0,0 +1,126 @@
+package queue;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// int specialization of RingDeque, items are stored without boxing
+public class IntDeque {
+    private static final int MIN_CAPACITY = 8;
+
+    // the backing array never shrinks below this capacity
+    private final int minCapacity;
+    private int[] items;
+    private int head;
+    private int size;
+
+    public IntDeque() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntDeque(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Capacity cannot be negative.");
+        this.minCapacity = RingDeque.capacityFor(initialCapacity, MIN_CAPACITY);
+        this.items = new int[minCapacity];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(int item) {
+        if (size == items.length) {
+            grow();
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    public void addLast(int item) {
+        if (size == items.length) {
+            grow();
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public int removeFirst() {
+        validateNotEmpty();
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    public int removeLast() {
+        validateNotEmpty();
+        int item = items[(head + size - 1) & (items.length - 1)];
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    public int peekFirst() {
+        validateNotEmpty();
+        return items[head];
+    }
+
+    public int peekLast() {
+        validateNotEmpty();
+        return items[(head + size - 1) & (items.length - 1)];
+    }
+
+    private void grow() {
+        if (items.length >= 1 << 30) throw new IllegalStateException("IntDeque is full.");
+        resize(items.length * 2);
+    }
+
+    private void shrinkIfSparse() {
+        if (items.length > minCapacity && size <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] resized = new int[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, resized, 0, firstPart);
+        System.arraycopy(items, 0, resized, firstPart, size - firstPart);
+        items = resized;
+        head = 0;
+    }
+
+    private void validateNotEmpty() {
+        if (isEmpty()) throw new NoSuchElementException("IntDeque is empty.");
+    }
+
+    // return an iterator over items in order from front to back
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= size) {
+                    throw new NoSuchElementException("No such element.");
+                }
+                return items[(head + index++) & (items.length - 1)];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Remove is unsupported.");
+            }
+        };
+    }
+}
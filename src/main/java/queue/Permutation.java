@@ -1,27 +1,26 @@
 package queue;
 
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
+
+import java.nio.channels.Channels;
 
 public class Permutation {
     public static void main(String[] args) {
         int k = Integer.parseInt(args[0]);
+        TokenReader reader = new TokenReader(Channels.newChannel(System.in));
+        ReservoirSampler<String> sampler = new ReservoirSampler<>(k);
+        while (true) {
+            sampler.skip(reader.skipTokens(sampler.itemsToSkip()));
+            String str = reader.next();
+            if (str == null) break;
+            sampler.offer(str);
+        }
+        // reservoir keeps arrival order for its first items, so print it in random order
         RandomizedQueue<String> queue = new RandomizedQueue<>();
-        int i = 0;
-        while (!StdIn.isEmpty()) {
-            String str = StdIn.readString();
-            if (i++ < k) {
-                queue.enqueue(str);
-            } else {
-                boolean needEnqueue = StdRandom.uniform(i) < k;
-                if (needEnqueue) {
-                    queue.dequeue();
-                    queue.enqueue(str);
-                }
-            }
+        for (String str : sampler.sample()) {
+            queue.enqueue(str);
         }
-        for (i = 0; i < k; i++) {
+        while (!queue.isEmpty()) {
             StdOut.println(queue.dequeue());
         }
     }
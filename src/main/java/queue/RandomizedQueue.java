@@ -2,15 +2,31 @@ package queue;
 
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
+    // array header and slot sizes of a 64-bit JVM with compressed oops (the default below 32 GB heaps)
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    // the backing array never shrinks below this capacity
+    private final int minCapacity;
     private Item[] items;
     private int nextIndex;
+    // changed by every enqueue and dequeue, lazy iterators fail fast when it changes under them
+    private int modCount;
 
     public RandomizedQueue() {
-        this.items = (Item[]) new Object[1];
+        this(1);
+    }
+
+    public RandomizedQueue(int initialCapacity) {
+        if (initialCapacity <= 0) throw new IllegalArgumentException("Capacity must be greater then 0.");
+        this.minCapacity = initialCapacity;
+        this.items = (Item[]) new Object[initialCapacity];
     }
 
     public boolean isEmpty() {
@@ -24,10 +40,33 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     public void enqueue(Item item) {
         if (item == null) throw new IllegalArgumentException();
 
-        if (size() == items.length) {
-            resize(items.length * 2);
-        }
+        ensureCapacity(nextIndex + 1);
         items[nextIndex++] = item;
+        modCount++;
+    }
+
+    // items are validated before any of them is enqueued, storage grows at most once
+    public void enqueueAll(Item[] newItems) {
+        if (newItems == null) throw new IllegalArgumentException();
+        for (Item item : newItems) {
+            if (item == null) throw new IllegalArgumentException();
+        }
+        ensureCapacity(nextIndex + newItems.length);
+        System.arraycopy(newItems, 0, items, nextIndex, newItems.length);
+        nextIndex += newItems.length;
+        modCount++;
+    }
+
+    public void enqueueAll(Collection<? extends Item> newItems) {
+        if (newItems == null) throw new IllegalArgumentException();
+        enqueueAll((Item[]) newItems.toArray());
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity < 0) throw new IllegalStateException("RandomizedQueue is too large.");
+        if (capacity > items.length) {
+            resize(Math.max(capacity, (int) Math.min(Integer.MAX_VALUE - 8, items.length * 2L)));
+        }
     }
 
     public Item dequeue() {
@@ -37,6 +76,10 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         items[randomIndex] = items[nextIndex - 1];
         items[nextIndex - 1] = null;
         nextIndex--;
+        modCount++;
+        if (nextIndex <= items.length / 4 && items.length / 2 >= minCapacity) {
+            resize(items.length / 2);
+        }
         return item;
     }
 
@@ -46,46 +89,119 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         System.arraycopy(oldArr, 0, items, 0, nextIndex);
     }
 
+    public int capacity() {
+        return items.length;
+    }
+
+    // approximate heap footprint of the backing array, the items themselves are not counted
+    public long footprintBytes() {
+        return ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * items.length;
+    }
+
     public Item sample() {
         if (isEmpty()) throw new NoSuchElementException();
         int randomIndex = StdRandom.uniform(nextIndex);
         return items[randomIndex];
     }
 
+    // iterates a shuffled copy of the items, the queue may change while iterating
     public Iterator<Item> iterator() {
+        return new SnapshotIterator();
+    }
+
+    // iterates the live items without copying them, throws ConcurrentModificationException when
+    // the queue changes while iterating
+    public Iterator<Item> lazyIterator() {
         return new RandomizedIterator();
     }
 
-    private RandomizedQueue<Item> copy() {
-        RandomizedQueue<Item> copy = new RandomizedQueue<>();
-        copy.items = (Item[]) new Object[this.nextIndex];
-        copy.nextIndex = this.nextIndex;
-        System.arraycopy(this.items, 0, copy.items, 0, nextIndex);
-        return copy;
+    private class SnapshotIterator implements Iterator<Item> {
+        private final Item[] randomizedItems;
+        private int N;
+
+        public SnapshotIterator() {
+            this.randomizedItems = (Item[]) new Object[nextIndex];
+            System.arraycopy(items, 0, randomizedItems, 0, nextIndex);
+            StdRandom.shuffle(randomizedItems);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return N < randomizedItems.length;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return randomizedItems[N++];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Unsupported");
+        }
     }
 
+    // walks the backing array in the order of a pseudo-random bijection over [0, size): an 8 round
+    // Feistel network with random keys over the smallest even-bit domain covering size, indexes
+    // outside of [0, size) are skipped (cycle walking); no array is copied or allocated
     private class RandomizedIterator implements Iterator<Item> {
+        private static final int ROUNDS = 8;
 
-        private Item[] randomizedItems;
-        private int N;
+        private final int size;
+        private final int expectedModCount;
+        private final int halfBits;
+        private final int halfMask;
+        private final int[] keys = new int[ROUNDS];
+        private long counter;
+        private int returned;
 
         public RandomizedIterator() {
-            RandomizedQueue<Item> queueCopy = copy();
-            this.randomizedItems = (Item[]) new Object[queueCopy.nextIndex];
-            int i = 0;
-            while (!queueCopy.isEmpty()) {
-                this.randomizedItems[i++] = queueCopy.dequeue();
+            this.size = nextIndex;
+            this.expectedModCount = modCount;
+            int bits = size <= 1 ? 1 : 32 - Integer.numberOfLeadingZeros(size - 1);
+            this.halfBits = Math.max(1, (bits + 1) / 2);
+            this.halfMask = (1 << halfBits) - 1;
+            for (int i = 0; i < ROUNDS; i++) {
+                keys[i] = StdRandom.uniform(Integer.MAX_VALUE);
             }
         }
 
+        private long permute(long index) {
+            int left = (int) (index >>> halfBits);
+            int right = (int) index & halfMask;
+            for (int key : keys) {
+                int newLeft = right;
+                right = left ^ (mix(right ^ key) & halfMask);
+                left = newLeft;
+            }
+            return ((long) left << halfBits) | right;
+        }
+
+        private int mix(int value) {
+            value *= 0x9E3779B9;
+            value ^= value >>> 16;
+            value *= 0x85EBCA6B;
+            value ^= value >>> 13;
+            value *= 0xC2B2AE35;
+            return value ^ (value >>> 16);
+        }
+
         @Override
         public boolean hasNext() {
-            return N < randomizedItems.length;
+            return returned < size;
         }
 
         @Override
         public Item next() {
-            return randomizedItems[N++];
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (returned >= size) throw new NoSuchElementException();
+            long index;
+            do {
+                index = permute(counter++);
+            } while (index >= size);
+            returned++;
+            return items[(int) index];
         }
 
         @Override
@@ -0,0 +1,163 @@
+package queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// uniform sample of k items from a stream of unknown length, Li's Algorithm L: after the reservoir is
+// full the sampler knows how many of the next items it is going to reject, so a caller can skip them
+// without reading them, and only O(k (1 + log(n / k))) random numbers are drawn for n items
+public class ReservoirSampler<Item> {
+    private final int k;
+    private final SplittableRandom random;
+    private final Item[] reservoir;
+    private long count;
+    // the largest of the k smallest random keys seen so far, the keys themselves are never drawn
+    private double w;
+    // 1-based position of the next item which gets into the reservoir
+    private long next;
+
+    public ReservoirSampler(int k) {
+        this(k, System.nanoTime());
+    }
+
+    public ReservoirSampler(int k, long seed) {
+        if (k < 0) throw new IllegalArgumentException("Sample size cannot be negative.");
+        this.k = k;
+        this.random = new SplittableRandom(seed);
+        this.reservoir = (Item[]) new Object[k];
+        this.next = k == 0 ? Long.MAX_VALUE : 1;
+    }
+
+    public void offer(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+        count++;
+        if (count != next)
+            return;
+        if (count <= k) {
+            reservoir[(int) count - 1] = item;
+            if (count == k) {
+                w = Math.exp(Math.log(uniform()) / k);
+                scheduleNext();
+            } else {
+                next++;
+            }
+        } else {
+            reservoir[random.nextInt(k)] = item;
+            w *= Math.exp(Math.log(uniform()) / k);
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
+        double gap = Math.floor(Math.log(uniform()) / Math.log1p(-w));
+        next = gap >= Long.MAX_VALUE - count ? Long.MAX_VALUE : count + (long) gap + 1;
+    }
+
+    // uniform in (0, 1), log of it is always finite
+    private double uniform() {
+        double u;
+        do {
+            u = random.nextDouble();
+        } while (u == 0);
+        return u;
+    }
+
+    // number of upcoming items which will be rejected anyway
+    public long itemsToSkip() {
+        return next - count - 1;
+    }
+
+    // accounts for items which were not offered, n must not exceed itemsToSkip()
+    public void skip(long n) {
+        if (n < 0 || n > itemsToSkip()) throw new IllegalArgumentException("Cannot skip " + n + " items.");
+        count += n;
+    }
+
+    // number of items seen so far, including skipped ones
+    public long count() {
+        return count;
+    }
+
+    public int size() {
+        return (int) Math.min(count, k);
+    }
+
+    public Iterable<Item> sample() {
+        List<Item> sample = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            sample.add(reservoir[i]);
+        }
+        return sample;
+    }
+
+    // makes this sampler a uniform sample of both streams, as if it had seen all items of that too;
+    // both samplers must have the same k, that sampler is left untouched
+    public void merge(ReservoirSampler<Item> that) {
+        if (that == null || that.k != k) throw new IllegalArgumentException("Samplers must have the same size.");
+        if (that.count == 0)
+            return;
+        if (k == 0) {
+            count += that.count;
+            return;
+        }
+        Item[] mine = Arrays.copyOf(reservoir, size());
+        Item[] theirs = Arrays.copyOf(that.reservoir, that.size());
+        int mineLeft = mine.length;
+        int theirsLeft = theirs.length;
+        // draw without replacement from the union: each slot comes from a stream with probability
+        // proportional to the number of its items which are not drawn yet
+        long minePopulation = count;
+        long theirsPopulation = that.count;
+        int merged = (int) Math.min(k, count + that.count);
+        for (int i = 0; i < merged; i++) {
+            boolean fromMine = random.nextDouble() * (minePopulation + theirsPopulation) < minePopulation;
+            if (fromMine) {
+                int j = random.nextInt(mineLeft);
+                reservoir[i] = mine[j];
+                mine[j] = mine[--mineLeft];
+                minePopulation--;
+            } else {
+                int j = random.nextInt(theirsLeft);
+                reservoir[i] = theirs[j];
+                theirs[j] = theirs[--theirsLeft];
+                theirsPopulation--;
+            }
+        }
+        count += that.count;
+        if (count < k) {
+            next = count + 1;
+        } else {
+            // w is the k-th smallest of count uniform keys, which is Beta(k, count - k + 1)
+            double x = gamma(k);
+            double y = gamma(count - k + 1);
+            w = x / (x + y);
+            scheduleNext();
+        }
+    }
+
+    // Marsaglia-Tsang, shape >= 1
+    private double gamma(double shape) {
+        double d = shape - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x;
+            double v;
+            do {
+                x = gaussian();
+                v = 1 + c * x;
+            } while (v <= 0);
+            v = v * v * v;
+            double u = uniform();
+            if (Math.log(u) < 0.5 * x * x + d - d * v + d * Math.log(v)) {
+                return d * v;
+            }
+        }
+    }
+
+    // Box-Muller
+    private double gaussian() {
+        return Math.sqrt(-2 * Math.log(uniform())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
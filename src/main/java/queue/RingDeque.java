@@ -0,0 +1,148 @@
+package queue;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Deque over a circular array: doubles when full, halves when a quarter full,
+// so there is no per item node and memory stays proportional to the size
+public class RingDeque<Item> implements Iterable<Item> {
+    private static final int MIN_CAPACITY = 8;
+
+    // the backing array never shrinks below this capacity
+    private final int minCapacity;
+    private Item[] items;
+    private int head;
+    private int size;
+
+    public RingDeque() {
+        this(MIN_CAPACITY);
+    }
+
+    public RingDeque(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Capacity cannot be negative.");
+        this.minCapacity = capacityFor(initialCapacity, MIN_CAPACITY);
+        this.items = (Item[]) new Object[minCapacity];
+    }
+
+    // smallest power of two which is >= capacity and >= minCapacity
+    static int capacityFor(int capacity, int minCapacity) {
+        if (capacity > 1 << 30) throw new IllegalArgumentException("Capacity is too large.");
+        int result = minCapacity;
+        while (result < capacity) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(Item item) {
+        validateItem(item);
+        if (size == items.length) {
+            grow();
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    public void addLast(Item item) {
+        validateItem(item);
+        if (size == items.length) {
+            grow();
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public Item removeFirst() {
+        validateNotEmpty();
+        Item item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    public Item removeLast() {
+        validateNotEmpty();
+        int lastIndex = (head + size - 1) & (items.length - 1);
+        Item item = items[lastIndex];
+        items[lastIndex] = null;
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    public Item peekFirst() {
+        validateNotEmpty();
+        return items[head];
+    }
+
+    public Item peekLast() {
+        validateNotEmpty();
+        return items[(head + size - 1) & (items.length - 1)];
+    }
+
+    private void grow() {
+        if (items.length >= 1 << 30) throw new IllegalStateException("RingDeque is full.");
+        resize(items.length * 2);
+    }
+
+    private void shrinkIfSparse() {
+        if (items.length > minCapacity && size <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    private void resize(int capacity) {
+        Item[] resized = (Item[]) new Object[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, resized, 0, firstPart);
+        System.arraycopy(items, 0, resized, firstPart, size - firstPart);
+        items = resized;
+        head = 0;
+    }
+
+    private void validateItem(Item item) {
+        if (item == null) throw new IllegalArgumentException("Item cannot be null.");
+    }
+
+    private void validateNotEmpty() {
+        if (isEmpty()) throw new NoSuchElementException("RingDeque is empty.");
+    }
+
+    // return an iterator over items in order from front to back
+    public Iterator<Item> iterator() {
+        return new RingDequeIterator();
+    }
+
+    private class RingDequeIterator implements Iterator<Item> {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Item next() {
+            if (index >= size) {
+                throw new NoSuchElementException("No such element.");
+            }
+            return items[(head + index++) & (items.length - 1)];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove is unsupported.");
+        }
+    }
+}
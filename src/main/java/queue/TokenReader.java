@@ -0,0 +1,104 @@
+package queue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// whitespace separated UTF-8 tokens read straight from a channel through one reusable buffer;
+// skipped tokens are only scanned, no String is built for them
+public class TokenReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private byte[] token = new byte[64];
+    private boolean endOfStream;
+
+    public TokenReader(ReadableByteChannel channel) {
+        if (channel == null) throw new IllegalArgumentException();
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    public TokenReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // next token or null at the end of the stream
+    public String next() {
+        if (!skipWhitespace())
+            return null;
+        int length = 0;
+        while (hasByte()) {
+            byte b = buffer.get(buffer.position());
+            if (isWhitespace(b)) break;
+            buffer.position(buffer.position() + 1);
+            if (length == token.length) {
+                token = Arrays.copyOf(token, token.length * 2);
+            }
+            token[length++] = b;
+        }
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // skips up to n tokens and returns how many were actually there
+    public long skipTokens(long n) {
+        long skipped = 0;
+        while (skipped < n && skipWhitespace()) {
+            while (hasByte() && !isWhitespace(buffer.get(buffer.position()))) {
+                buffer.position(buffer.position() + 1);
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+
+    // false when only whitespace is left
+    private boolean skipWhitespace() {
+        while (hasByte()) {
+            if (!isWhitespace(buffer.get(buffer.position()))) {
+                return true;
+            }
+            buffer.position(buffer.position() + 1);
+        }
+        return false;
+    }
+
+    private boolean hasByte() {
+        if (buffer.hasRemaining())
+            return true;
+        if (endOfStream)
+            return false;
+        buffer.clear();
+        try {
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            if (read < 0) {
+                endOfStream = true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.flip();
+        }
+        return buffer.hasRemaining();
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
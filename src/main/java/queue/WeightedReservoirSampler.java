@@ -0,0 +1,129 @@
+package queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// weighted sample of k items from a stream (Efraimidis-Spirakis): every item gets the key u^(1 / weight)
+// and the k largest keys win; A-ExpJ draws an exponential jump over the total weight of items which
+// cannot get in, so random numbers are only drawn for items entering the reservoir.
+// keys are kept as logarithms, log(u) / weight, in a primitive min-heap
+public class WeightedReservoirSampler<Item> {
+    private final int k;
+    private final SplittableRandom random;
+    private final double[] logKeys;
+    private final Item[] items;
+    private int size;
+    private long count;
+    // weight still to be passed over before the next item enters the full reservoir
+    private double weightToSkip;
+
+    public WeightedReservoirSampler(int k) {
+        this(k, System.nanoTime());
+    }
+
+    public WeightedReservoirSampler(int k, long seed) {
+        if (k <= 0) throw new IllegalArgumentException("Sample size must be greater then 0.");
+        this.k = k;
+        this.random = new SplittableRandom(seed);
+        this.logKeys = new double[k];
+        this.items = (Item[]) new Object[k];
+    }
+
+    public void offer(Item item, double weight) {
+        if (item == null) throw new IllegalArgumentException();
+        if (!(weight > 0) || Double.isInfinite(weight)) throw new IllegalArgumentException("Weight must be positive.");
+        count++;
+        if (size < k) {
+            push(item, Math.log(uniform()) / weight);
+            if (size == k) {
+                scheduleJump();
+            }
+            return;
+        }
+        weightToSkip -= weight;
+        if (weightToSkip > 0)
+            return;
+        // the new key is drawn conditioned on beating the current minimum
+        double threshold = Math.exp(weight * logKeys[0]);
+        double u = threshold + (1 - threshold) * uniform();
+        replaceMin(item, Math.log(u) / weight);
+        scheduleJump();
+    }
+
+    private void scheduleJump() {
+        weightToSkip = Math.log(uniform()) / logKeys[0];
+    }
+
+    // uniform in (0, 1), log of it is always finite
+    private double uniform() {
+        double u;
+        do {
+            u = random.nextDouble();
+        } while (u == 0);
+        return u;
+    }
+
+    private void push(Item item, double logKey) {
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (logKeys[parent] <= logKey) break;
+            logKeys[i] = logKeys[parent];
+            items[i] = items[parent];
+            i = parent;
+        }
+        logKeys[i] = logKey;
+        items[i] = item;
+    }
+
+    private void replaceMin(Item item, double logKey) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && logKeys[child + 1] < logKeys[child]) child++;
+            if (logKeys[child] >= logKey) break;
+            logKeys[i] = logKeys[child];
+            items[i] = items[child];
+            i = child;
+        }
+        logKeys[i] = logKey;
+        items[i] = item;
+    }
+
+    // number of items seen so far
+    public long count() {
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Iterable<Item> sample() {
+        List<Item> sample = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sample.add(items[i]);
+        }
+        return sample;
+    }
+
+    // keeps the k largest keys of both samplers, which is exactly the sample of both streams together;
+    // both samplers must have the same k, that sampler is left untouched
+    public void merge(WeightedReservoirSampler<Item> that) {
+        if (that == null || that.k != k) throw new IllegalArgumentException("Samplers must have the same size.");
+        for (int i = 0; i < that.size; i++) {
+            if (size < k) {
+                push(that.items[i], that.logKeys[i]);
+            } else if (that.logKeys[i] > logKeys[0]) {
+                replaceMin(that.items[i], that.logKeys[i]);
+            }
+        }
+        count += that.count;
+        // jumps are memoryless, so a fresh one from the new minimum is as good as the old one
+        if (size == k) {
+            scheduleJump();
+        }
+    }
+}
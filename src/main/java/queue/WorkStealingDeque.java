@@ -0,0 +1,101 @@
+package queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Chase-Lev work-stealing deque: a single owner thread pushes and pops at the bottom,
+// any number of thieves steal from the top; only a steal and a pop of the last item race on a CAS
+public class WorkStealingDeque<Item> {
+    private static final int MIN_CAPACITY = 16;
+
+    // index of the next item to steal, only ever incremented
+    private final AtomicLong top = new AtomicLong();
+    // index of the next free slot, written by the owner only
+    private volatile long bottom;
+    // circular buffer, slot of index i is i & (items.length - 1); the owner replaces it with a
+    // larger copy when full, a thief holding the old buffer still finds its item at the same index
+    private volatile Object[] items;
+
+    public WorkStealingDeque() {
+        this(MIN_CAPACITY);
+    }
+
+    public WorkStealingDeque(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Capacity cannot be negative.");
+        this.items = new Object[RingDeque.capacityFor(initialCapacity, MIN_CAPACITY)];
+    }
+
+    // owner only
+    public void push(Item item) {
+        if (item == null) throw new IllegalArgumentException("Item cannot be null.");
+        long b = bottom;
+        long t = top.get();
+        Object[] buffer = items;
+        if (b - t >= buffer.length) {
+            buffer = grow(buffer, t, b);
+        }
+        buffer[(int) b & (buffer.length - 1)] = item;
+        // volatile write publishes the item to thieves
+        bottom = b + 1;
+    }
+
+    private Object[] grow(Object[] buffer, long t, long b) {
+        if (buffer.length >= 1 << 30) throw new IllegalStateException("WorkStealingDeque is full.");
+        Object[] grown = new Object[buffer.length * 2];
+        for (long i = t; i < b; i++) {
+            grown[(int) i & (grown.length - 1)] = buffer[(int) i & (buffer.length - 1)];
+        }
+        items = grown;
+        return grown;
+    }
+
+    // owner only, returns the most recently pushed item or null when the deque is empty
+    public Item pop() {
+        long b = bottom - 1;
+        Object[] buffer = items;
+        // volatile write followed by volatile read of top: a thief either sees the smaller bottom or we see its steal
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+        int index = (int) b & (buffer.length - 1);
+        Item item = (Item) buffer[index];
+        if (t == b) {
+            // the last item, race with thieves for it
+            if (!top.compareAndSet(t, t + 1)) {
+                item = null;
+            }
+            bottom = b + 1;
+        }
+        // thieves never take this slot once we hold it, so it can be cleared
+        if (item != null) {
+            buffer[index] = null;
+        }
+        return item;
+    }
+
+    // any thread, returns the oldest item or null when the deque is empty or the steal lost a race.
+    // the stolen slot keeps its reference until a later push overwrites it: once top has moved the
+    // owner may already be pushing into that slot again, so a thief must not clear it
+    public Item steal() {
+        long t = top.get();
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        Object[] buffer = items;
+        Item item = (Item) buffer[(int) t & (buffer.length - 1)];
+        return top.compareAndSet(t, t + 1) ? item : null;
+    }
+
+    // a snapshot which may already be stale when concurrent threads are working on the deque
+    public int size() {
+        long size = bottom - top.get();
+        return size < 0 ? 0 : (int) size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
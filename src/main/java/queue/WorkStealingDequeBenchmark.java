@@ -0,0 +1,132 @@
+package queue;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// stress check and throughput comparison of WorkStealingDeque against ConcurrentLinkedDeque:
+// the owner pushes items and pops every other one back, thieves steal the rest; every item
+// has to be taken exactly once
+public class WorkStealingDequeBenchmark {
+    // thieves give up when not every item has been taken by then, e.g. because one got lost
+    private static final long TIMEOUT_NANOS = 60_000_000_000L;
+
+    private interface WorkQueue {
+        void push(Integer item);
+
+        Integer pop();
+
+        Integer steal();
+    }
+
+    private static WorkQueue workStealing() {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        return new WorkQueue() {
+            public void push(Integer item) {
+                deque.push(item);
+            }
+
+            public Integer pop() {
+                return deque.pop();
+            }
+
+            public Integer steal() {
+                return deque.steal();
+            }
+        };
+    }
+
+    private static WorkQueue concurrentLinked() {
+        ConcurrentLinkedDeque<Integer> deque = new ConcurrentLinkedDeque<>();
+        return new WorkQueue() {
+            public void push(Integer item) {
+                deque.addLast(item);
+            }
+
+            public Integer pop() {
+                return deque.pollLast();
+            }
+
+            public Integer steal() {
+                return deque.pollFirst();
+            }
+        };
+    }
+
+    private static void run(String name, WorkQueue queue, Integer[] values, int thieves) throws InterruptedException {
+        int n = values.length;
+        AtomicIntegerArray taken = new AtomicIntegerArray(n);
+        AtomicInteger takenCount = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (takenCount.get() < n) {
+                    Integer item = queue.steal();
+                    if (item != null) {
+                        taken.incrementAndGet(item);
+                        takenCount.incrementAndGet();
+                    } else if (System.nanoTime() - deadline > 0) {
+                        return;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (int i = 0; i < n; i++) {
+            queue.push(values[i]);
+            if ((i & 1) == 1) {
+                Integer item = queue.pop();
+                if (item != null) {
+                    taken.incrementAndGet(item);
+                    takenCount.incrementAndGet();
+                }
+            }
+        }
+        Integer item;
+        while ((item = queue.pop()) != null) {
+            taken.incrementAndGet(item);
+            takenCount.incrementAndGet();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        if (takenCount.get() != n) {
+            throw new IllegalStateException(name + ": only " + takenCount.get() + " of " + n + " items were taken.");
+        }
+        for (int i = 0; i < n; i++) {
+            if (taken.get(i) != 1) {
+                throw new IllegalStateException(name + ": item " + i + " was taken " + taken.get(i) + " times.");
+            }
+        }
+        System.out.printf("%-22s thieves=%2d: %8.1f M items/s%n", name, thieves, n / (elapsedNanos / 1e3));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThieves = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        run("warmup", workStealing(), values, 1);
+        run("warmup", concurrentLinked(), values, 1);
+        for (int thieves = 1; thieves <= maxThieves; thieves *= 2) {
+            run("WorkStealingDeque", workStealing(), values, thieves);
+            run("ConcurrentLinkedDeque", concurrentLinked(), values, thieves);
+        }
+    }
+}